@@ -22,11 +22,11 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
-import fj.test.Bool;
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
 import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.config.AnalysisConfig;
-import pascal.taie.ir.exp.FieldAccess;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.LValue;
 import pascal.taie.ir.exp.RValue;
 import pascal.taie.ir.exp.Var;
@@ -40,8 +40,15 @@ public class LiveVariableAnalysis extends
 
     public static final String ID = "livevar";
 
+    /**
+     * Whether the facts are represented by {@link BitSetFact}s
+     * indexed by {@link Var#getIndex()}.
+     */
+    private final boolean bitSetFact;
+
     public LiveVariableAnalysis(AnalysisConfig config) {
         super(config);
+        bitSetFact = "bitset".equals(getOptions().getString("fact"));
     }
 
     @Override
@@ -52,7 +59,7 @@ public class LiveVariableAnalysis extends
     @Override
     public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
         // Boundary of live variable analysis is the exit node.
-        return new SetFact<>();
+        return newInitialFact(cfg);
     }
 
     @Override
@@ -60,6 +67,16 @@ public class LiveVariableAnalysis extends
         return new SetFact<>();
     }
 
+    @Override
+    public SetFact<Var> newInitialFact(CFG<Stmt> cfg) {
+        if (bitSetFact) {
+            IR ir = cfg.getIR();
+            return new BitSetFact<>(ir::getVar);
+        } else {
+            return newInitialFact();
+        }
+    }
+
     @Override
     public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
         target.union(fact);
@@ -67,25 +84,28 @@ public class LiveVariableAnalysis extends
 
     @Override
     public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
-        SetFact<Var> newIn = new SetFact<>();
-        newIn.union(out);
+        // IN = use U (OUT - def). As the solver only makes facts grow,
+        // the old IN is always a subset of the new one, thus we update
+        // IN in place and compare the sizes to detect the changes.
+        Var def = null;
         if (stmt.getDef().isPresent()) {
-            LValue def = stmt.getDef().get();
-            if (def instanceof Var) {
-                newIn.remove((Var) def);
+            LValue lValue = stmt.getDef().get();
+            if (lValue instanceof Var v && !in.contains(v)) {
+                // def is not in IN means that def is not used by stmt
+                // (see below), so it is killed by stmt
+                def = v;
             }
         }
+        int oldSize = in.size();
+        in.union(out);
+        if (def != null) {
+            in.remove(def);
+        }
         for (RValue use : stmt.getUses()) {
-            if (use instanceof Var) {
-                newIn.add((Var) use);
+            if (use instanceof Var v) {
+                in.add(v);
             }
         }
-        if (in.equals(newIn)) {
-            return false;
-        } else {
-            in.set(newIn);
-            System.out.println(in);
-            return true;
-        }
+        return in.size() != oldSize;
     }
 }
@@ -0,0 +1,223 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.Streams;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Represents set-like data-flow facts whose elements are {@link Indexable},
+ * e.g., {@link pascal.taie.ir.exp.Var} or {@link pascal.taie.ir.stmt.Stmt}
+ * of a method. The elements are stored as bits addressed by their indexes,
+ * so that set operations among facts of the same method are performed
+ * word by word without creating any objects.
+ * <p>
+ * Note that the elements of this fact are compared by their indexes,
+ * thus this fact can only be combined (or compared) with other facts
+ * whose elements come from the same index space, e.g., the variables
+ * of the same IR.
+ *
+ * @param <E> type of elements
+ */
+public class BitSetFact<E extends Indexable> extends SetFact<E> {
+
+    /**
+     * Maps indexes back to elements, e.g., {@code ir::getVar}.
+     */
+    private final IntFunction<E> elements;
+
+    private final BitSet bits;
+
+    /**
+     * @param elements function that maps indexes back to elements
+     */
+    public BitSetFact(IntFunction<E> elements) {
+        this(elements, new BitSet());
+    }
+
+    private BitSetFact(IntFunction<E> elements, BitSet bits) {
+        // the elements are kept in bits, thus no set is allocated
+        super((Set<E>) null);
+        this.elements = elements;
+        this.bits = bits;
+    }
+
+    @Override
+    public boolean contains(E e) {
+        return bits.get(e.getIndex());
+    }
+
+    @Override
+    public boolean add(E e) {
+        int index = e.getIndex();
+        if (bits.get(index)) {
+            return false;
+        }
+        bits.set(index);
+        return true;
+    }
+
+    @Override
+    public boolean remove(E e) {
+        int index = e.getIndex();
+        if (bits.get(index)) {
+            bits.clear(index);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<E> filter) {
+        boolean changed = false;
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            if (filter.test(elements.apply(i))) {
+                bits.clear(i);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean union(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            int oldSize = bits.cardinality();
+            bits.or(that.bits);
+            return bits.cardinality() != oldSize;
+        }
+        boolean changed = false;
+        Iterator<E> it = other.stream().iterator();
+        while (it.hasNext()) {
+            changed |= add(it.next());
+        }
+        return changed;
+    }
+
+    @Override
+    public BitSetFact<E> unionWith(SetFact<E> other) {
+        BitSetFact<E> result = copy();
+        result.union(other);
+        return result;
+    }
+
+    @Override
+    public boolean intersect(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            int oldSize = bits.cardinality();
+            bits.and(that.bits);
+            return bits.cardinality() != oldSize;
+        }
+        return removeIf(e -> !other.contains(e));
+    }
+
+    @Override
+    public BitSetFact<E> intersectWith(SetFact<E> other) {
+        BitSetFact<E> result = copy();
+        result.intersect(other);
+        return result;
+    }
+
+    @Override
+    public void set(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            bits.clear();
+            bits.or(that.bits);
+        } else {
+            clear();
+            union(other);
+        }
+    }
+
+    @Override
+    public BitSetFact<E> copy() {
+        return new BitSetFact<>(elements, (BitSet) bits.clone());
+    }
+
+    @Override
+    public void clear() {
+        bits.clear();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    @Override
+    public Stream<E> stream() {
+        return bits.stream().mapToObj(elements);
+    }
+
+    @Override
+    public int size() {
+        return bits.cardinality();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof BitSetFact<?> that) {
+            return bits.equals(that.bits);
+        }
+        if (!(o instanceof SetFact<?> that)) {
+            return false;
+        }
+        // compare with the facts of other representations by elements
+        if (size() != that.size()) {
+            return false;
+        }
+        Iterator<?> it = that.stream().iterator();
+        while (it.hasNext()) {
+            if (!(it.next() instanceof Indexable e) || !bits.get(e.getIndex())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The hash code is the sum of the hash codes of the elements
+     * (as specified by {@link java.util.Set#hashCode()}), so that it
+     * is consistent with {@link #equals(Object)} for the facts of
+     * other representations.
+     */
+    @Override
+    public int hashCode() {
+        return stream().mapToInt(Object::hashCode).sum();
+    }
+
+    @Override
+    public String toString() {
+        return Streams.toString(stream());
+    }
+}
@@ -25,8 +25,9 @@ package pascal.taie.analysis.dataflow.fact;
 import pascal.taie.util.collection.CollectionUtils;
 import pascal.taie.util.collection.Sets;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -41,11 +42,22 @@ public class SetFact<E> {
     protected final Set<E> set;
 
     public SetFact(Collection<E> c) {
-        set = Sets.newHybridSet(c);
+        this(Sets.newHybridSet(c));
     }
 
     public SetFact() {
-        this(Collections.emptySet());
+        this(Sets.<E>newHybridSet());
+    }
+
+    /**
+     * Constructs a fact which stores its elements in given set (without
+     * copying it). The subclasses which keep their elements in another
+     * representation (see {@link #isPlain(SetFact)}) give null, so that
+     * no set is allocated for them, and they must override all methods
+     * accessing {@link #set}.
+     */
+    protected SetFact(@Nullable Set<E> set) {
+        this.set = set;
     }
 
     /**
@@ -89,7 +101,15 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean union(SetFact<E> other) {
-        return set.addAll(other.set);
+        if (isPlain(other)) {
+            return set.addAll(other.set);
+        }
+        boolean changed = false;
+        Iterator<E> it = other.stream().iterator();
+        while (it.hasNext()) {
+            changed |= set.add(it.next());
+        }
+        return changed;
     }
 
     /**
@@ -107,7 +127,8 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean intersect(SetFact<E> other) {
-        return set.retainAll(other.set);
+        return isPlain(other) ? set.retainAll(other.set)
+                : set.removeIf(e -> !other.contains(e));
     }
 
     /**
@@ -131,7 +152,7 @@ public class SetFact<E> {
      * Creates and returns a copy of this fact.
      */
     public SetFact<E> copy() {
-        return new SetFact<>(this.set);
+        return new SetFact<>(Sets.newHybridSet(set));
     }
 
     /**
@@ -161,7 +182,21 @@ public class SetFact<E> {
         if (!(o instanceof SetFact<?> that)) {
             return false;
         }
-        return set.equals(that.set);
+        if (isPlain(that)) {
+            return set.equals(that.set);
+        }
+        // compare with the facts of other representations by elements
+        return that.equals(this);
+    }
+
+    /**
+     * @return true if the elements of given fact are stored in
+     * {@link #set}, i.e., it is not a subclass which keeps its elements
+     * in another representation, e.g., {@link BitSetFact}. The elements
+     * of other facts must be accessed through their methods.
+     */
+    private static boolean isPlain(SetFact<?> fact) {
+        return fact.getClass() == SetFact.class;
     }
 
     @Override
@@ -23,36 +23,97 @@
 package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
-import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
-import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
-import pascal.taie.config.AnalysisConfig;
 
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Round-robin (chaotic iteration) solver, which iterates the nodes in
+ * weak topological order of the CFG (the reverse CFG for backward analysis).
+ * Each component (loop) is iterated until its head stabilizes,
+ * so that inner loops stabilize before the outer ones.
+ *
+ * @see WeakTopologicalOrder
+ */
 class IterativeSolver<Node, Fact> extends Solver<Node, Fact> {
 
+    /**
+     * Number of node updates performed by this solver, which shows
+     * how many updates are saved by iterating only the components that
+     * have not stabilized instead of sweeping all nodes. A solver may be
+     * shared by the threads analyzing different methods, thus we use
+     * {@link LongAdder} to count the updates.
+     */
+    private final LongAdder nodeUpdates = new LongAdder();
+
     public IterativeSolver(DataflowAnalysis<Node, Fact> analysis) {
         super(analysis);
     }
 
     @Override
     protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        throw new UnsupportedOperationException();
+        WeakTopologicalOrder<Node> wto = new WeakTopologicalOrder<>(
+                cfg.getEntry(), cfg.getNodes(), cfg::getSuccsOf);
+        solve(wto.getElements(), node -> {
+            if (cfg.isEntry(node)) {
+                return false;
+            }
+            for (Node predecessor : cfg.getPredsOf(node)) {
+                analysis.meetInto(result.getOutFact(predecessor), result.getInFact(node));
+            }
+            return analysis.transferNode(node, result.getInFact(node), result.getOutFact(node));
+        });
     }
 
     @Override
     protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        boolean modified = true;
-        while (modified) {
-            modified = false;
-            for (Node node: cfg.getNodes()) {
-                if (!cfg.isExit(node)) {
-                    for (Node successor : cfg.getSuccsOf(node)) {
-                        analysis.meetInto(result.getInFact(successor), result.getOutFact(node));
-                    }
-                    modified |= analysis.transferNode(node, result.getInFact(node), result.getOutFact(node));
-                }
+        WeakTopologicalOrder<Node> wto = new WeakTopologicalOrder<>(
+                cfg.getExit(), cfg.getNodes(), cfg::getPredsOf);
+        solve(wto.getElements(), node -> {
+            if (cfg.isExit(node)) {
+                return false;
+            }
+            for (Node successor : cfg.getSuccsOf(node)) {
+                analysis.meetInto(result.getInFact(successor), result.getOutFact(node));
+            }
+            return analysis.transferNode(node, result.getInFact(node), result.getOutFact(node));
+        });
+    }
+
+    /**
+     * @return the number of node updates performed by this solver so far.
+     */
+    long getNodeUpdateCount() {
+        return nodeUpdates.sum();
+    }
+
+    /**
+     * Solves given WTO elements in order.
+     *
+     * @param update updates the facts of a node, and returns
+     *               if the facts flowing to its dependents changed
+     */
+    private void solve(List<WeakTopologicalOrder.Element<Node>> elements,
+                       Predicate<Node> update) {
+        for (WeakTopologicalOrder.Element<Node> element : elements) {
+            if (element.isComponent()) {
+                // iterate the component until its head stabilizes;
+                // the body is solved at least once
+                update(element.getNode(), update);
+                do {
+                    solve(element.getBody(), update);
+                } while (update(element.getNode(), update));
+            } else {
+                update(element.getNode(), update);
             }
         }
     }
+
+    private boolean update(Node node, Predicate<Node> update) {
+        nodeUpdates.increment();
+        return update.test(node);
+    }
 }
@@ -0,0 +1,268 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Weak topological order (WTO) of a graph, computed by Bourdoncle's
+ * algorithm (F. Bourdoncle, Efficient chaotic iteration strategies with
+ * widenings, FMPA'93).
+ * <p>
+ * A WTO is a hierarchical ordering of the nodes, where each component
+ * consists of a head and a body, and the body is again a sequence of
+ * nodes and nested components. Every back edge of the graph targets
+ * the head of a component that contains the source of the edge, thus
+ * solving the components in order, and each component until its head
+ * stabilizes, makes inner loops stabilize before the outer ones.
+ * The heads of components are also the points where widening should
+ * be applied for the lattices of infinite height.
+ *
+ * @param <Node> type of nodes
+ */
+class WeakTopologicalOrder<Node> {
+
+    /**
+     * DFS number of the nodes that have been completely processed.
+     */
+    private static final int DONE = Integer.MAX_VALUE;
+
+    private final Function<Node, ? extends Collection<Node>> succs;
+
+    private final Map<Node, Integer> dfn;
+
+    private final Deque<Node> stack = new ArrayDeque<>();
+
+    private int num = 0;
+
+    private final List<Element<Node>> elements;
+
+    /**
+     * Computes the WTO of a graph.
+     *
+     * @param root  the node where the search starts, e.g., the entry of CFG
+     * @param nodes all nodes of the graph; the nodes which are unreachable
+     *              from root are ordered by the subsequent searches
+     * @param succs the successors of each node
+     */
+    WeakTopologicalOrder(Node root, Collection<Node> nodes,
+                         Function<Node, ? extends Collection<Node>> succs) {
+        this.succs = succs;
+        this.dfn = Maps.newMap(nodes.size());
+        Deque<Element<Node>> partition = new ArrayDeque<>();
+        visit(root, partition);
+        for (Node node : nodes) {
+            if (getDfn(node) == 0) {
+                visit(node, partition);
+            }
+        }
+        elements = List.copyOf(partition);
+    }
+
+    /**
+     * @return the top-level elements of this WTO.
+     */
+    List<Element<Node>> getElements() {
+        return elements;
+    }
+
+    private int getDfn(Node node) {
+        return dfn.getOrDefault(node, 0);
+    }
+
+    /**
+     * Iterative version of procedure visit() of Bourdoncle's algorithm,
+     * so that large methods do not overflow the call stack. Each frame
+     * represents an active call of either visit() or component().
+     */
+    private void visit(Node root, Deque<Element<Node>> partition) {
+        Deque<Frame<Node>> frames = new ArrayDeque<>();
+        frames.push(enter(root, partition));
+        // head returned by the most recently finished call of visit()
+        int returned = -1;
+        while (!frames.isEmpty()) {
+            Frame<Node> frame = frames.peek();
+            if (frame.body == null) { // call of visit()
+                if (returned >= 0) {
+                    updateHead(frame, returned);
+                    returned = -1;
+                }
+                if (frame.succs.hasNext()) {
+                    Node succ = frame.succs.next();
+                    int succDfn = getDfn(succ);
+                    if (succDfn == 0) {
+                        frames.push(enter(succ, frame.partition));
+                    } else {
+                        updateHead(frame, succDfn);
+                    }
+                    continue;
+                }
+                frames.pop();
+                if (frame.head == getDfn(frame.node)) {
+                    dfn.put(frame.node, DONE);
+                    Node element = stack.pop();
+                    if (frame.loop) {
+                        while (element != frame.node) {
+                            dfn.put(element, 0);
+                            element = stack.pop();
+                        }
+                        // the head is returned when the component is done
+                        frames.push(new Frame<>(frame.node,
+                                succs.apply(frame.node).iterator(),
+                                frame.partition, new ArrayDeque<>(), frame.head));
+                        continue;
+                    } else {
+                        frame.partition.addFirst(new Element<>(frame.node, null));
+                    }
+                }
+                returned = frame.head;
+            } else { // call of component()
+                returned = -1; // component() ignores the heads
+                if (frame.succs.hasNext()) {
+                    Node succ = frame.succs.next();
+                    if (getDfn(succ) == 0) {
+                        frames.push(enter(succ, frame.body));
+                    }
+                    continue;
+                }
+                frames.pop();
+                frame.partition.addFirst(
+                        new Element<>(frame.node, List.copyOf(frame.body)));
+                returned = frame.head;
+            }
+        }
+    }
+
+    private Frame<Node> enter(Node node, Deque<Element<Node>> partition) {
+        stack.push(node);
+        dfn.put(node, ++num);
+        return new Frame<>(node, succs.apply(node).iterator(),
+                partition, null, num);
+    }
+
+    private static void updateHead(Frame<?> frame, int min) {
+        if (min <= frame.head) {
+            frame.head = min;
+            frame.loop = true;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toString(elements);
+    }
+
+    private static String toString(List<? extends Element<?>> elements) {
+        return elements.stream()
+                .map(Element::toString)
+                .collect(Collectors.joining(" "));
+    }
+
+    /**
+     * An active call of visit() or component().
+     */
+    private static class Frame<Node> {
+
+        private final Node node;
+
+        private final Iterator<Node> succs;
+
+        /**
+         * The partition which the result of this call is put into.
+         */
+        private final Deque<Element<Node>> partition;
+
+        /**
+         * The body of component for calls of component(),
+         * or null for calls of visit().
+         */
+        private final Deque<Element<Node>> body;
+
+        private int head;
+
+        private boolean loop = false;
+
+        private Frame(Node node, Iterator<Node> succs,
+                      Deque<Element<Node>> partition,
+                      Deque<Element<Node>> body, int head) {
+            this.node = node;
+            this.succs = succs;
+            this.partition = partition;
+            this.body = body;
+            this.head = head;
+        }
+    }
+
+    /**
+     * An element of WTO, which is either a single node,
+     * or a component consisting of a head node and a body.
+     */
+    static class Element<Node> {
+
+        private final Node node;
+
+        private final List<Element<Node>> body;
+
+        private Element(Node node, List<Element<Node>> body) {
+            this.node = node;
+            this.body = body;
+        }
+
+        /**
+         * @return the node of this element, or the head
+         * if this element is a component.
+         */
+        Node getNode() {
+            return node;
+        }
+
+        boolean isComponent() {
+            return body != null;
+        }
+
+        /**
+         * @return the body of this component. The body is empty
+         * if this element is not a component.
+         */
+        List<Element<Node>> getBody() {
+            return body != null ? body : List.of();
+        }
+
+        @Override
+        public String toString() {
+            return isComponent()
+                    ? "(" + node + (body.isEmpty() ? "" : " " + WeakTopologicalOrder.toString(body)) + ")"
+                    : String.valueOf(node);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class SetFactTest {
+
+    private static final List<Var> VARS = IntStream.range(0, 4)
+            .mapToObj(i -> new Var(null, "v" + i, PrimitiveType.INT, i))
+            .toList();
+
+    private static SetFact<Var> setFact(int... indexes) {
+        SetFact<Var> fact = new SetFact<>();
+        for (int i : indexes) {
+            fact.add(VARS.get(i));
+        }
+        return fact;
+    }
+
+    private static BitSetFact<Var> bitSetFact(int... indexes) {
+        BitSetFact<Var> fact = new BitSetFact<>(VARS::get);
+        for (int i : indexes) {
+            fact.add(VARS.get(i));
+        }
+        return fact;
+    }
+
+    @Test
+    public void testUnionWithBitSetFact() {
+        SetFact<Var> fact = setFact(0);
+        Assert.assertTrue(fact.union(bitSetFact(1, 2)));
+        Assert.assertEquals(setFact(0, 1, 2), fact);
+        Assert.assertFalse(fact.union(bitSetFact(1)));
+    }
+
+    @Test
+    public void testIntersectWithBitSetFact() {
+        SetFact<Var> fact = setFact(0, 1, 2);
+        Assert.assertTrue(fact.intersect(bitSetFact(1, 2, 3)));
+        Assert.assertEquals(setFact(1, 2), fact);
+    }
+
+    @Test
+    public void testEqualsAcrossRepresentations() {
+        Assert.assertEquals(setFact(0, 3), bitSetFact(0, 3));
+        Assert.assertEquals(bitSetFact(0, 3), setFact(0, 3));
+        Assert.assertEquals(setFact(0, 3).hashCode(), bitSetFact(0, 3).hashCode());
+        Assert.assertNotEquals(setFact(0), bitSetFact(0, 3));
+        Assert.assertNotEquals(bitSetFact(0, 3), setFact(0));
+        Assert.assertNotEquals(setFact(), bitSetFact(1));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.analysis.IntraDataflowDriver;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the intraprocedural data-flow analyses on the test programs
+ * under src/test/resources/dataflow/. Each invocation solves the analysis
+ * once for every method of the program, so that the throughput reflects
+ * the cost of per-method solving.
+ * <p>
+ * Run with {@code ./gradlew jmh}, which also reports the allocation
+ * rate (via {@code -prof gc}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataflowBenchmark {
+
+    /**
+     * The program to be analyzed, in form of "dir/MainClass",
+     * where dir is relative to src/test/resources/dataflow/.
+     * The programs are loaded separately, as the classes in different
+     * directories may have the same names.
+     */
+    @Param({
+            "constprop/Loop",
+            "constprop/BranchConstant",
+            "livevar/Fibonacci",
+            "livevar/BranchLoop",
+            "deadcode/Loops",
+    })
+    public String program;
+
+    /**
+     * The analysis to be benchmarked and its options, in the same form
+     * as the analysis arguments of the command line, i.e., "id=key:value;...".
+     */
+    @Param({
+            "livevar=strongly:false;worklist:fifo",
+            "livevar=strongly:false;worklist:rpo",
+            "constprop=edge-refine:false;worklist:fifo",
+            "constprop=edge-refine:false;worklist:rpo",
+            "constprop=edge-refine:false;fact:indexed",
+            "constprop=edge-refine:false;sparse:true",
+    })
+    public String analysis;
+
+    private MethodAnalysis methodAnalysis;
+
+    private List<IR> irs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int i = program.indexOf('/');
+        String classPath = "src/test/resources/dataflow/" + program.substring(0, i);
+        String mainClass = program.substring(i + 1);
+        // builds the world and the CFGs of all methods once for the trial
+        Main.main(new String[]{
+                "-pp", "-cp", classPath, "-m", mainClass, "-a", CFGBuilder.ID});
+        irs = World.get()
+                .getClassHierarchy()
+                .applicationClasses()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .map(JMethod::getIR)
+                .toList();
+        methodAnalysis = makeAnalysis(analysis);
+    }
+
+    @Benchmark
+    public void solve(Blackhole blackhole) {
+        for (IR ir : irs) {
+            blackhole.consume(methodAnalysis.analyze(ir));
+        }
+    }
+
+    /**
+     * Creates the analysis described by given argument, by the same factory
+     * as {@link IntraDataflowDriver}.
+     */
+    private static MethodAnalysis makeAnalysis(String arg) {
+        int i = arg.indexOf('=');
+        String id = i < 0 ? arg : arg.substring(0, i);
+        Map<String, Object> options = new LinkedHashMap<>();
+        if (i >= 0) {
+            for (String kv : arg.substring(i + 1).split(";")) {
+                String[] pair = kv.split(":", 2);
+                options.put(pair[0], parseValue(pair[1]));
+            }
+        }
+        return IntraDataflowDriver.makeAnalysis(id, options);
+    }
+
+    private static Object parseValue(String value) {
+        return switch (value) {
+            case "true" -> true;
+            case "false" -> false;
+            default -> value;
+        };
+    }
+}
@@ -22,7 +22,9 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.World;
 import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.ResultProcessor;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
@@ -31,19 +33,93 @@ import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.analysis.graph.cfg.IndexedReachability;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
+import pascal.taie.config.Options;
+import pascal.taie.config.PlanConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
 import pascal.taie.ir.stmt.*;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 public class DeadCodeDetection extends MethodAnalysis {
 
     public static final String ID = "deadcode";
 
+    /**
+     * Constant propagation performed by this analysis in fused mode,
+     * or null if the results of {@link ConstantPropagation} and
+     * {@link LiveVariableAnalysis} are obtained from the IR.
+     * <p>
+     * In fused mode, the constants are computed by sparse constant
+     * propagation, and the liveness of the variables defined by the
+     * candidate dead assignments are computed sparsely (see
+     * {@link #findDeadAssignments(CFG, List)}), and neither result is
+     * stored in the IR. Thus, the facts of a method are released as soon
+     * as the method is done, instead of being kept for all methods until
+     * this analysis runs.
+     */
+    @Nullable
+    private final ConstantPropagation constprop;
+
+    /**
+     * Reporter which writes the dead code of each method as soon as
+     * the method is analyzed, or null if no report file is given.
+     * <p>
+     * When the dead code is reported, this analysis returns null instead
+     * of the dead code, so that the dead code of the analyzed methods
+     * is not kept in memory (together with the fused mode, nothing about
+     * a method is kept after it is analyzed). Thus, the results of this
+     * analysis cannot be processed by {@link ResultProcessor} in this case,
+     * and such plans are rejected.
+     */
+    @Nullable
+    private final DeadCodeReporter reporter;
+
     public DeadCodeDetection(AnalysisConfig config) {
         super(config);
+        constprop = getOptions().getBooleanOrDefault("fused", false) ?
+                new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID,
+                        "edge-refine", false, "sparse", true)) : null;
+        String report = getOptions().getString("report");
+        String format = getOptions().getString("report-format");
+        if (report != null) {
+            checkNoResultProcessing();
+            reporter = new DeadCodeReporter(report,
+                    format != null ? format : "line");
+        } else {
+            reporter = null;
+        }
+    }
+
+    /**
+     * Checks that the plan does not process the results of this analysis
+     * by {@link ResultProcessor}, which finds no results when the dead code
+     * is reported.
+     *
+     * @throws ConfigException if the results are processed
+     */
+    private static void checkNoResultProcessing() {
+        World world = World.get();
+        if (world == null) { // not run by Main, e.g., in unit tests
+            return;
+        }
+        Options options = world.getOptions();
+        List<PlanConfig> plan = options.getPlanFile() != null ?
+                PlanConfig.readConfigs(options.getPlanFile()) :
+                PlanConfig.readConfigs(options);
+        for (PlanConfig config : plan) {
+            if (config.getId().equals(ResultProcessor.ID) &&
+                    config.getOptions().get("analyses") instanceof List<?> ids &&
+                    ids.contains(ID)) {
+                throw new ConfigException(ResultProcessor.ID +
+                        " cannot process the results of " + ID +
+                        " when the dead code is reported");
+            }
+        }
     }
 
     @Override
@@ -51,23 +127,19 @@ public class DeadCodeDetection extends MethodAnalysis {
         // obtain CFG
         CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
         // obtain result of constant propagation
-        DataflowResult<Stmt, CPFact> constants =
-                ir.getResult(ConstantPropagation.ID);
-        // obtain result of live variable analysis
-        DataflowResult<Stmt, SetFact<Var>> liveVars =
-                ir.getResult(LiveVariableAnalysis.ID);
+        DataflowResult<Stmt, CPFact> constants = constprop != null ?
+                constprop.analyze(ir) : ir.getResult(ConstantPropagation.ID);
+        // obtain result of live variable analysis, which is absent
+        // in fused mode
+        DataflowResult<Stmt, SetFact<Var>> liveVars = constprop != null ?
+                null : ir.getResult(LiveVariableAnalysis.ID);
+        // assignments which are dead if their LValues are not live
+        List<Stmt> candidates = new ArrayList<>();
         // keep statements (dead code) sorted in the resulting set
         Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
         // Your task is to recognize dead code in ir and add it to deadCode
-        Set<Stmt> visited_node = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
-        Stmt stmt;
-        Queue<Stmt> worklist = new LinkedList<>();
-        worklist.offer(cfg.getEntry());
-        while (!worklist.isEmpty()) {
-            stmt = worklist.remove();
-            if (!visited_node.add(stmt)) {
-                continue;
-            }
+        IndexedReachability<Stmt> reachability = new IndexedReachability<>(cfg);
+        reachability.traverse(List.of(cfg.getEntry()), (stmt, reach) -> {
             // unreachable code, if case
             if (stmt instanceof If s) {
                 Value condition = ConstantPropagation.evaluate(s.getCondition(), constants.getInFact(s));
@@ -76,11 +148,11 @@ public class DeadCodeDetection extends MethodAnalysis {
                     cfg.getOutEdgesOf(stmt).forEach(branch -> {
                         if ((branch.getKind() == Edge.Kind.IF_TRUE && condition_value == 1)
                                 || (branch.getKind() == Edge.Kind.IF_FALSE && condition_value == 0)) {
-                            worklist.offer(branch.getTarget());
+                            reach.accept(branch.getTarget());
                         }
                     });
                 } else {
-                    worklist.addAll(cfg.getSuccsOf(stmt));
+                    cfg.getSuccsOf(stmt).forEach(reach);
                 }
                 // unreachable code, switch case
             } else if (stmt instanceof SwitchStmt s) {
@@ -93,28 +165,95 @@ public class DeadCodeDetection extends MethodAnalysis {
                             match_case = branch.getTarget();
                         }
                     }
-                    worklist.offer(match_case != null ? match_case : s.getDefaultTarget());
+                    reach.accept(match_case != null ? match_case : s.getDefaultTarget());
                 } else {
-                    worklist.addAll(cfg.getSuccsOf(s));
+                    cfg.getSuccsOf(s).forEach(reach);
                 }
             } else {
                 // dead Assignment
                 if (stmt instanceof AssignStmt<?, ?> s && hasNoSideEffect(s.getRValue())
-                        && s.getLValue() instanceof Var v && !liveVars.getResult(stmt).contains(v)) {
-                    deadCode.add(stmt);
+                        && s.getLValue() instanceof Var) {
+                    candidates.add(stmt);
                 }
-                worklist.addAll(cfg.getSuccsOf(stmt));
+                cfg.getSuccsOf(stmt).forEach(reach);
             }
+        });
+        if (liveVars != null) {
+            candidates.forEach(candidate -> {
+                if (!liveVars.getResult(candidate).contains(defVarOf(candidate))) {
+                    deadCode.add(candidate);
+                }
+            });
+        } else {
+            deadCode.addAll(findDeadAssignments(cfg, candidates));
         }
         cfg.getNodes().forEach(node -> {
-            if (!visited_node.contains(node)) {
+            if (!reachability.isReached(node)) {
                 deadCode.add(node);
             }
         });
         deadCode.remove(cfg.getExit());
+        if (reporter != null) {
+            reporter.report(ir.getMethod().toString(), deadCode);
+            return null;
+        }
         return deadCode;
     }
 
+    /**
+     * @return the variable defined by given statement, or null if
+     * the statement does not define a variable.
+     */
+    @Nullable
+    private static Var defVarOf(Stmt stmt) {
+        return stmt.getDef().orElse(null) instanceof Var v ? v : null;
+    }
+
+    /**
+     * Computes the liveness of the variables defined by given assignments
+     * sparsely, i.e., for each such variable, marks the statements before
+     * which the variable is live by traversing the CFG backward from the
+     * uses of the variable, stopping at its other definitions. The results
+     * are the same as those of {@link LiveVariableAnalysis}, but only one
+     * bit set (reused for all variables) is kept instead of the facts of
+     * all statements.
+     *
+     * @return the assignments whose defined variables are not live after them.
+     */
+    private static List<Stmt> findDeadAssignments(CFG<Stmt> cfg, List<Stmt> candidates) {
+        Map<Var, List<Stmt>> defs = new LinkedHashMap<>();
+        candidates.forEach(candidate -> defs.computeIfAbsent(
+                defVarOf(candidate), v -> new ArrayList<>()).add(candidate));
+        Map<Var, List<Stmt>> uses = new HashMap<>();
+        for (Stmt stmt : cfg) {
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var v && defs.containsKey(v)) {
+                    uses.computeIfAbsent(v, u -> new ArrayList<>()).add(stmt);
+                }
+            }
+        }
+        List<Stmt> deadAssignments = new ArrayList<>();
+        // reused for all variables
+        IndexedReachability<Stmt> reachability = new IndexedReachability<>(cfg);
+        defs.forEach((var, varDefs) -> {
+            BitSet liveIn = reachability.traverse(
+                    uses.getOrDefault(var, List.of()), (stmt, reach) -> {
+                        for (Stmt pred : cfg.getPredsOf(stmt)) {
+                            if (!var.equals(defVarOf(pred))) {
+                                reach.accept(pred);
+                            }
+                        }
+                    });
+            for (Stmt def : varDefs) {
+                if (cfg.getSuccsOf(def).stream()
+                        .noneMatch(succ -> liveIn.get(succ.getIndex()))) {
+                    deadAssignments.add(def);
+                }
+            }
+        });
+        return deadAssignments;
+    }
+
     /**
      * @return true if given RValue has no side effect, otherwise false.
      */
@@ -0,0 +1,143 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IRPrinter;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.AnalysisException;
+
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.Collection;
+
+/**
+ * Writes the dead code of each method to a file as soon as the method
+ * is analyzed by {@link DeadCodeDetection}, so that the results can be
+ * consumed by other tools while the analysis is running. Two formats
+ * are supported:
+ * <ul>
+ *     <li>{@code line}: one line for each dead statement, i.e., the
+ *     method followed by the statement (in the form of {@link IRPrinter});</li>
+ *     <li>{@code jsonl}: one JSON object for each method which has dead
+ *     code, i.e., {@code {"method": ..., "deadCode": [...]}}.</li>
+ * </ul>
+ * The dead code of a method is written at once, thus the
+ * records of different methods are never interleaved, even if the methods
+ * are analyzed in parallel (by the analysis manager, or by
+ * {@link IntraDataflowDriver}).
+ */
+class DeadCodeReporter {
+
+    private final boolean jsonl;
+
+    private final String file;
+
+    /**
+     * Creates a reporter which writes to given file. The file is created
+     * (or truncated) at once, so that a bad path is reported before any
+     * method is analyzed.
+     */
+    DeadCodeReporter(String file, String format) {
+        jsonl = switch (format) {
+            case "line" -> false;
+            case "jsonl" -> true;
+            default -> throw new ConfigException(
+                    "Unsupported dead code report format: " + format);
+        };
+        this.file = file;
+        open(false).close();
+    }
+
+    /**
+     * Writes the dead code of given method. Nothing is written
+     * if the method has no dead code.
+     * <p>
+     * The report file is opened (in append mode) and closed for each
+     * record, as a method analysis is never told that all methods are
+     * analyzed, thus the file is never left open after the analysis
+     * finishes, and each record is visible once it is reported.
+     */
+    synchronized void report(String method, Collection<Stmt> deadCode) {
+        if (deadCode.isEmpty()) {
+            return;
+        }
+        PrintStream out = open(true);
+        if (jsonl) {
+            StringBuilder record = new StringBuilder("{\"method\": ");
+            appendJSONString(record, method);
+            record.append(", \"deadCode\": [");
+            boolean first = true;
+            for (Stmt stmt : deadCode) {
+                if (!first) {
+                    record.append(", ");
+                }
+                appendJSONString(record, IRPrinter.toString(stmt));
+                first = false;
+            }
+            out.println(record.append("]}"));
+        } else {
+            deadCode.forEach(stmt ->
+                    out.println(method + " " + IRPrinter.toString(stmt)));
+        }
+        // checkError() flushes the stream
+        boolean failed = out.checkError();
+        out.close();
+        if (failed) {
+            throw new AnalysisException("Failed to write dead code report " + file);
+        }
+    }
+
+    private PrintStream open(boolean append) {
+        try {
+            return new PrintStream(new BufferedOutputStream(
+                    new FileOutputStream(file, append)));
+        } catch (FileNotFoundException e) {
+            throw new AnalysisException("Failed to open dead code report " + file, e);
+        }
+    }
+
+    private static void appendJSONString(StringBuilder builder, String s) {
+        builder.append('"');
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        builder.append('"');
+    }
+}
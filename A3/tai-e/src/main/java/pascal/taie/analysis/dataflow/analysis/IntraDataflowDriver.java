@@ -0,0 +1,275 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.ProgramAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.config.Configs;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Driver which performs intraprocedural data-flow analyses on the methods
+ * of application classes in a {@link ForkJoinPool}. The analyses of
+ * different methods are independent, so each method is analyzed by a task,
+ * which performs the given analyses on the method in order (so that later
+ * analyses, e.g., dead code detection, can use the results of the earlier
+ * ones), and stores the results in the IR of the method, as if the analyses
+ * were run by the analysis manager.
+ * <p>
+ * This analysis returns, for each analysis ID, the results of the methods
+ * in a map whose iteration order is deterministic regardless of the
+ * scheduling of the tasks.
+ */
+public class IntraDataflowDriver extends ProgramAnalysis {
+
+    public static final String ID = "intra-dataflow";
+
+    private static final Logger logger = LogManager.getLogger(IntraDataflowDriver.class);
+
+    /**
+     * Default options of the analyses supported by this driver,
+     * as given in the analysis registry (tai-e-analyses.yml).
+     */
+    private static final Map<String, Map<String, Object>> DEFAULT_OPTIONS = new HashMap<>();
+
+    /**
+     * Required analyses of the analyses supported by this driver,
+     * as given in the analysis registry (tai-e-analyses.yml).
+     */
+    private static final Map<String, List<String>> REQUIRES = new HashMap<>();
+
+    static {
+        readRegistry();
+    }
+
+    private final int parallelism;
+
+    private final List<MethodAnalysis> analyses = new ArrayList<>();
+
+    public IntraDataflowDriver(AnalysisConfig config) {
+        super(config);
+        int n = getOptions().getInt("parallelism");
+        parallelism = n > 0 ? n : Runtime.getRuntime().availableProcessors();
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> configs =
+                (Map<String, Map<String, Object>>) getOptions().get("analyses");
+        configs.forEach((id, options) -> {
+            checkRequires(id, configs);
+            analyses.add(makeAnalysis(id, options == null ? Map.of() : options));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void readRegistry() {
+        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+        try (InputStream content = Configs.getAnalysisConfig()) {
+            for (Map<String, Object> config :
+                    (List<Map<String, Object>>) mapper.readValue(content, List.class)) {
+                String id = (String) config.get("id");
+                if (isSupported(id)) {
+                    Map<String, Object> options = (Map<String, Object>) config.get("options");
+                    DEFAULT_OPTIONS.put(id, options == null ? Map.of() : options);
+                    List<String> requires = (List<String>) config.get("requires");
+                    REQUIRES.put(id, requires == null ? List.of() : requires);
+                }
+            }
+        } catch (IOException e) {
+            throw new ConfigException("Failed to read analysis config file", e);
+        }
+    }
+
+    private static boolean isSupported(String id) {
+        return switch (id) {
+            case ConstantPropagation.ID, LiveVariableAnalysis.ID,
+                    DeadCodeDetection.ID -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Checks that the analyses required by the analysis of given ID,
+     * which are performed by this driver, are given before the analysis
+     * in {@code configs}, as the analyses are performed in order.
+     * The required analyses which are not supported by this driver,
+     * e.g., cfg, are run by the analysis manager before this driver.
+     *
+     * @throws ConfigException if a required analysis is missing
+     */
+    private static void checkRequires(
+            String id, Map<String, Map<String, Object>> configs) {
+        Map<String, Object> options = mergeOptions(id, configs.get(id));
+        for (String required : REQUIRES.getOrDefault(id, List.of())) {
+            int i = required.indexOf('(');
+            String requiredId = i < 0 ? required : required.substring(0, i);
+            if (!isSupported(requiredId) || (i >= 0 && !satisfyConditions(
+                    required.substring(i + 1, required.length() - 1), options))) {
+                continue;
+            }
+            boolean found = false;
+            for (String prev : configs.keySet()) {
+                if (prev.equals(id)) {
+                    break;
+                }
+                if (prev.equals(requiredId)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                throw new ConfigException(String.format(
+                        "Analysis \"%s\" requires \"%s\" to be given before it in %s",
+                        id, requiredId, ID));
+            }
+        }
+    }
+
+    /**
+     * Evaluates the conditions of a required analysis, in the form of
+     * {@code key=value1|value2&key2=value3}, on given options.
+     */
+    private static boolean satisfyConditions(
+            String conditions, Map<String, Object> options) {
+        for (String condition : conditions.split("&")) {
+            String[] kv = condition.split("=", 2);
+            String value = String.valueOf(options.get(kv[0].strip()));
+            if (!List.of(kv[1].strip().split("\\|")).contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the options given in the registry for the analysis of given ID,
+     * overwritten by given options.
+     */
+    private static Map<String, Object> mergeOptions(
+            String id, Map<String, Object> options) {
+        Map<String, Object> merged = new LinkedHashMap<>(
+                DEFAULT_OPTIONS.getOrDefault(id, Map.of()));
+        if (options != null) {
+            merged.putAll(options);
+        }
+        return merged;
+    }
+
+    /**
+     * Creates the intraprocedural analysis of given ID with given options.
+     * The options which are not given take their default values in the
+     * analysis registry (tai-e-analyses.yml).
+     */
+    public static MethodAnalysis makeAnalysis(String id, Map<String, Object> options) {
+        AnalysisConfig config = new AnalysisConfig(null, null, id,
+                List.of(), new AnalysisOptions(mergeOptions(id, options)));
+        return switch (id) {
+            case ConstantPropagation.ID -> new ConstantPropagation(config);
+            case LiveVariableAnalysis.ID -> new LiveVariableAnalysis(config);
+            case DeadCodeDetection.ID -> new DeadCodeDetection(config);
+            default -> throw new ConfigException(
+                    "Unsupported intraprocedural analysis: " + id);
+        };
+    }
+
+    @Override
+    public Map<String, Map<JMethod, Object>> analyze() {
+        List<JMethod> methods = World.get()
+                .getClassHierarchy()
+                .applicationClasses()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .toList();
+        logger.info("Analyzing {} methods with {} threads",
+                methods.size(), parallelism);
+        List<Callable<Object[]>> tasks = methods.stream()
+                .map(m -> (Callable<Object[]>) () -> analyze(m.getIR()))
+                .toList();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // invokeAll() returns the futures in the order of the tasks
+            List<Future<Object[]>> futures = pool.invokeAll(tasks);
+            Map<String, Map<JMethod, Object>> results = new LinkedHashMap<>();
+            analyses.forEach(a -> results.put(a.getId(), new LinkedHashMap<>()));
+            for (int i = 0; i < methods.size(); ++i) {
+                Object[] methodResults = futures.get(i).get();
+                for (int j = 0; j < analyses.size(); ++j) {
+                    if (methodResults[j] != null) {
+                        results.get(analyses.get(j).getId())
+                                .put(methods.get(i), methodResults[j]);
+                    }
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Interrupted when analyzing methods", e);
+        } catch (ExecutionException e) {
+            throw new AnalysisException("Failed to analyze methods", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Performs the analyses on given IR in order.
+     *
+     * @return the results of the analyses, in the same order as the analyses.
+     */
+    private Object[] analyze(IR ir) {
+        Object[] results = new Object[analyses.size()];
+        for (int i = 0; i < analyses.size(); ++i) {
+            MethodAnalysis analysis = analyses.get(i);
+            Object result = analysis.analyze(ir);
+            if (result != null) {
+                ir.storeResult(analysis.getId(), result);
+            }
+            results[i] = result;
+        }
+        return results;
+    }
+}
@@ -23,8 +23,11 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
 import pascal.taie.ir.stmt.DefinitionStmt;
 import pascal.taie.ir.stmt.Stmt;
@@ -35,8 +38,32 @@ public class ConstantPropagation extends AbstractDataflowAnalysis<Stmt, CPFact>
 
     public static final String ID = "constprop";
 
+    /**
+     * Whether the facts are represented by {@link IndexedCPFact}s
+     * holding {@link PackedValue}s.
+     */
+    private final boolean indexedFact;
+
+    /**
+     * Whether the analysis is solved sparsely over def-use chains
+     * by {@link SparseCPSolver}.
+     */
+    private final boolean sparse;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        indexedFact = "indexed".equals(getOptions().getString("fact"));
+        sparse = getOptions().getBooleanOrDefault("sparse", false);
+    }
+
+    @Override
+    public DataflowResult<Stmt, CPFact> analyze(IR ir) {
+        if (sparse) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            return new SparseCPSolver(this, cfg).solve();
+        } else {
+            return super.analyze(ir);
+        }
     }
 
     @Override
@@ -47,7 +74,7 @@ public class ConstantPropagation extends AbstractDataflowAnalysis<Stmt, CPFact>
     @Override
     public CPFact newBoundaryFact(CFG<Stmt> cfg) {
         // TODO - finish me
-        CPFact fact = newInitialFact();
+        CPFact fact = newInitialFact(cfg);
         cfg.getIR().getParams().forEach(var -> {
             if (canHoldInt(var)) {
                 fact.update(var, Value.getNAC());
@@ -62,9 +89,23 @@ public class ConstantPropagation extends AbstractDataflowAnalysis<Stmt, CPFact>
         return new CPFact();
     }
 
+    @Override
+    public CPFact newInitialFact(CFG<Stmt> cfg) {
+        if (indexedFact) {
+            IR ir = cfg.getIR();
+            return new IndexedCPFact(ir::getVar, ir.getVars().size());
+        } else {
+            return newInitialFact();
+        }
+    }
+
     @Override
     public void meetInto(CPFact fact, CPFact target) {
-        fact.forEach((var, value) -> target.update(var, meetValue(value, target.get(var))));
+        if (fact instanceof IndexedCPFact f && target instanceof IndexedCPFact t) {
+            t.meet(f);
+        } else {
+            fact.forEach((var, value) -> target.update(var, meetValue(value, target.get(var))));
+        }
     }
 
     /**
@@ -87,6 +128,9 @@ public class ConstantPropagation extends AbstractDataflowAnalysis<Stmt, CPFact>
         if (stmt instanceof DefinitionStmt<?, ?> st) {
             if (st.getLValue() instanceof Var var && canHoldInt(var)) {
                 RValue exp = ((DefinitionStmt<?, ?>) stmt).getRValue();
+                if (in instanceof IndexedCPFact i && out instanceof IndexedCPFact o) {
+                    return o.copyFrom(i, var.getIndex(), evaluatePacked(exp, i));
+                }
                 CPFact out_backup = newInitialFact();
                 out_backup.copyFrom(out);
                 out.copyFrom(in);
@@ -123,29 +167,45 @@ public class ConstantPropagation extends AbstractDataflowAnalysis<Stmt, CPFact>
      * @return the resulting {@link Value}
      */
     public static Value evaluate(Exp exp, CPFact in) {
-        // TODO - finish me
+        if (exp instanceof Var v) {
+            return in.get(v);
+        }
+        return PackedValue.unpack(evaluatePacked(exp, in));
+    }
+
+    /**
+     * Evaluates the {@link PackedValue} of given expression.
+     * This method does not allocate if {@code in} is an {@link IndexedCPFact}.
+     *
+     * @param exp the expression to be evaluated
+     * @param in  IN fact of the statement
+     * @return the resulting packed value
+     */
+    public static long evaluatePacked(Exp exp, CPFact in) {
         if (exp instanceof BinaryExp b) {
             Var operand1 = b.getOperand1();
             Var operand2 = b.getOperand2();
             if (canHoldInt(operand1) && canHoldInt(operand2)) {
+                long value1 = getPacked(in, operand1);
+                long value2 = getPacked(in, operand2);
                 if (exp instanceof ArithmeticExp a && (a.getOperator() == ArithmeticExp.Op.DIV
-                        || a.getOperator() == ArithmeticExp.Op.REM) && in.get(operand2).isConstant()
-                        && in.get(operand2).getConstant() == 0) {
-                    return Value.getUndef();
+                        || a.getOperator() == ArithmeticExp.Op.REM) && PackedValue.isConstant(value2)
+                        && PackedValue.getConstant(value2) == 0) {
+                    return PackedValue.UNDEF;
                 }
-                if (in.get(operand1).isConstant() && in.get(operand2).isConstant()) {
-                    int literal1 = in.get(operand1).getConstant();
-                    int literal2 = in.get(operand2).getConstant();
+                if (PackedValue.isConstant(value1) && PackedValue.isConstant(value2)) {
+                    int literal1 = PackedValue.getConstant(value1);
+                    int literal2 = PackedValue.getConstant(value2);
                     if (exp instanceof ArithmeticExp a) {
-                        return switch (a.getOperator()) {
-                            case ADD -> Value.makeConstant(literal1 + literal2);
-                            case SUB -> Value.makeConstant(literal1 - literal2);
-                            case MUL -> Value.makeConstant(literal1 * literal2);
-                            case DIV -> Value.makeConstant(literal1 / literal2);
-                            case REM -> Value.makeConstant(literal1 % literal2);
-                        };
+                        return PackedValue.makeConstant(switch (a.getOperator()) {
+                            case ADD -> literal1 + literal2;
+                            case SUB -> literal1 - literal2;
+                            case MUL -> literal1 * literal2;
+                            case DIV -> literal1 / literal2;
+                            case REM -> literal1 % literal2;
+                        });
                     } else if (exp instanceof ConditionExp c) {
-                        return Value.makeConstant(switch (c.getOperator()) {
+                        return PackedValue.makeConstant(switch (c.getOperator()) {
                             case EQ -> literal1 == literal2;
                             case GE -> literal1 >= literal2;
                             case GT -> literal1 > literal2;
@@ -154,34 +214,40 @@ public class ConstantPropagation extends AbstractDataflowAnalysis<Stmt, CPFact>
                             case NE -> literal1 != literal2;
                         } ? 1 : 0);
                     } else if (exp instanceof ShiftExp s) {
-                        return Value.makeConstant(switch (s.getOperator()) {
+                        return PackedValue.makeConstant(switch (s.getOperator()) {
                             case SHL -> literal1 << literal2;
                             case SHR -> literal1 >> literal2;
                             case USHR -> literal1 >>> literal2;
                         });
                     } else if (exp instanceof BitwiseExp bi) {
-                        return Value.makeConstant(switch (bi.getOperator()) {
+                        return PackedValue.makeConstant(switch (bi.getOperator()) {
                             case OR -> literal1 | literal2;
                             case AND -> literal1 & literal2;
                             case XOR -> literal1 ^ literal2;
                         });
                     } else {
-                        return Value.getNAC();
+                        return PackedValue.NAC;
                     }
-                } else if (in.get(operand1).isNAC() || in.get(operand2).isNAC()) {
-                    return Value.getNAC();
+                } else if (PackedValue.isNAC(value1) || PackedValue.isNAC(value2)) {
+                    return PackedValue.NAC;
                 } else {
-                    return Value.getUndef();
+                    return PackedValue.UNDEF;
                 }
             } else {
-                return Value.getNAC();
+                return PackedValue.NAC;
             }
         } else if (exp instanceof Var v) {
-            return in.get(v);
+            return getPacked(in, v);
         } else if (exp instanceof IntLiteral l) {
-            return Value.makeConstant(l.getValue());
+            return PackedValue.makeConstant(l.getValue());
         } else {
-            return Value.getNAC();
+            return PackedValue.NAC;
         }
     }
+
+    private static long getPacked(CPFact fact, Var var) {
+        return fact instanceof IndexedCPFact f
+                ? f.getPacked(var)
+                : PackedValue.pack(fact.get(var));
+    }
 }
@@ -0,0 +1,230 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * {@link CPFact} that stores the lattice values of variables as
+ * {@link PackedValue}s in a primitive array indexed by {@link Var#getIndex()}.
+ * <p>
+ * All variables in this fact must belong to the same IR, whose variables
+ * are given at construction. Variables absent in this fact are UNDEF,
+ * as in {@link CPFact}.
+ */
+public class IndexedCPFact extends CPFact {
+
+    /**
+     * Maps indexes to the variables of the IR.
+     */
+    private final IntFunction<Var> vars;
+
+    /**
+     * The packed values of the variables, indexed by {@link Var#getIndex()}.
+     */
+    private final long[] values;
+
+    /**
+     * @param vars     maps indexes to the variables of the IR
+     * @param capacity number of variables of the IR
+     */
+    public IndexedCPFact(IntFunction<Var> vars, int capacity) {
+        this(vars, new long[capacity]);
+    }
+
+    private IndexedCPFact(IntFunction<Var> vars, long[] values) {
+        this.vars = vars;
+        this.values = values;
+    }
+
+    /**
+     * @return the number of variables that this fact can hold.
+     */
+    public int capacity() {
+        return values.length;
+    }
+
+    /**
+     * @return the packed value of the variable with given index.
+     */
+    public long getPacked(int index) {
+        return values[index];
+    }
+
+    /**
+     * @return the packed value of given variable.
+     */
+    public long getPacked(Var var) {
+        return values[var.getIndex()];
+    }
+
+    /**
+     * Updates the packed value of the variable with given index.
+     *
+     * @return if the update changes this fact.
+     */
+    public boolean updatePacked(int index, long value) {
+        long oldValue = values[index];
+        values[index] = value;
+        return oldValue != value;
+    }
+
+    /**
+     * Meets given fact into this fact.
+     *
+     * @return if this fact changed as a result of the call.
+     */
+    public boolean meet(IndexedCPFact fact) {
+        boolean changed = false;
+        long[] other = fact.values;
+        for (int i = 0; i < values.length; ++i) {
+            long value = other[i];
+            if (!PackedValue.isUndef(value)) {
+                long oldValue = values[i];
+                long newValue = PackedValue.meet(value, oldValue);
+                if (newValue != oldValue) {
+                    values[i] = newValue;
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Copies the content from given fact to this fact, except that
+     * the variable with given index is set to given packed value.
+     *
+     * @return if this fact changed as a result of the call.
+     */
+    public boolean copyFrom(IndexedCPFact fact, int index, long value) {
+        boolean changed = false;
+        long[] other = fact.values;
+        for (int i = 0; i < values.length; ++i) {
+            long newValue = i == index ? value : other[i];
+            if (i == index || !PackedValue.isUndef(newValue)) {
+                changed |= values[i] != newValue;
+                values[i] = newValue;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public Value get(Var key) {
+        return PackedValue.unpack(values[key.getIndex()]);
+    }
+
+    @Override
+    public boolean update(Var key, Value value) {
+        return updatePacked(key.getIndex(), PackedValue.pack(value));
+    }
+
+    @Override
+    public Value remove(Var key) {
+        int index = key.getIndex();
+        long oldValue = values[index];
+        values[index] = PackedValue.UNDEF;
+        return PackedValue.isUndef(oldValue) ? null : PackedValue.unpack(oldValue);
+    }
+
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        if (fact instanceof IndexedCPFact other) {
+            return copyFrom(other, -1, PackedValue.UNDEF);
+        }
+        boolean changed = false;
+        for (Var var : fact.keySet()) {
+            changed |= update(var, fact.get(var));
+        }
+        return changed;
+    }
+
+    @Override
+    public IndexedCPFact copy() {
+        return new IndexedCPFact(vars, values.clone());
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, PackedValue.UNDEF);
+    }
+
+    /**
+     * @return the variables in this fact. The returned set is a snapshot,
+     * i.e., it does not reflect later modifications to this fact.
+     */
+    @Override
+    public Set<Var> keySet() {
+        Set<Var> keys = Sets.newHybridSet();
+        for (int i = 0; i < values.length; ++i) {
+            if (!PackedValue.isUndef(values[i])) {
+                keys.add(vars.apply(i));
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public Stream<Map.Entry<Var, Value>> entries() {
+        return IntStream.range(0, values.length)
+                .filter(i -> !PackedValue.isUndef(values[i]))
+                .mapToObj(i -> Map.entry(vars.apply(i), PackedValue.unpack(values[i])));
+    }
+
+    @Override
+    public void forEach(BiConsumer<Var, Value> action) {
+        for (int i = 0; i < values.length; ++i) {
+            if (!PackedValue.isUndef(values[i])) {
+                action.accept(vars.apply(i), PackedValue.unpack(values[i]));
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        IndexedCPFact that = (IndexedCPFact) o;
+        return Arrays.equals(values, that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+}
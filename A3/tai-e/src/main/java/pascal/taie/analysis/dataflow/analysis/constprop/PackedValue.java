@@ -0,0 +1,138 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.util.AnalysisException;
+
+/**
+ * Packed primitive encoding of {@link Value}s.
+ * <p>
+ * A value is encoded in a {@code long}, where the upper 32 bits hold
+ * the lattice kind and the lower 32 bits hold the integer constant.
+ * UNDEF is encoded as 0, so a freshly allocated {@code long[]}
+ * represents a fact in which all variables are UNDEF.
+ * Unlike {@link Value#makeConstant(int)}, making and meeting packed
+ * values never allocates.
+ */
+public final class PackedValue {
+
+    private static final long CONSTANT_KIND = 1L << 32;
+
+    private static final long KIND_MASK = 0xFFFFFFFF00000000L;
+
+    /**
+     * The packed UNDEF.
+     */
+    public static final long UNDEF = 0L;
+
+    /**
+     * The packed NAC.
+     */
+    public static final long NAC = 2L << 32;
+
+    private PackedValue() {
+    }
+
+    /**
+     * @return the packed constant for given value.
+     */
+    public static long makeConstant(int value) {
+        return CONSTANT_KIND | (value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return true if given packed value is UNDEF, otherwise false.
+     */
+    public static boolean isUndef(long value) {
+        return value == UNDEF;
+    }
+
+    /**
+     * @return true if given packed value represents a constant, otherwise false.
+     */
+    public static boolean isConstant(long value) {
+        return (value & KIND_MASK) == CONSTANT_KIND;
+    }
+
+    /**
+     * @return true if given packed value is NAC, otherwise false.
+     */
+    public static boolean isNAC(long value) {
+        return value == NAC;
+    }
+
+    /**
+     * @return the integer held by given packed constant.
+     * @throws AnalysisException if given value is not a constant
+     */
+    public static int getConstant(long value) {
+        if (!isConstant(value)) {
+            throw new AnalysisException(toString(value) + " is not a constant");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Meets two packed values.
+     */
+    public static long meet(long v1, long v2) {
+        if (v1 == v2 || v2 == UNDEF) {
+            return v1;
+        } else if (v1 == UNDEF) {
+            return v2;
+        } else {
+            // two different constants, or at least one NAC
+            return NAC;
+        }
+    }
+
+    /**
+     * @return the packed encoding of given {@link Value}.
+     */
+    public static long pack(Value value) {
+        if (value.isConstant()) {
+            return makeConstant(value.getConstant());
+        } else if (value.isNAC()) {
+            return NAC;
+        } else {
+            return UNDEF;
+        }
+    }
+
+    /**
+     * @return the {@link Value} represented by given packed value.
+     */
+    public static Value unpack(long value) {
+        if (isConstant(value)) {
+            return Value.makeConstant((int) value);
+        } else if (value == NAC) {
+            return Value.getNAC();
+        } else {
+            return Value.getUndef();
+        }
+    }
+
+    public static String toString(long value) {
+        return unpack(value).toString();
+    }
+}
@@ -0,0 +1,675 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Sparse constant propagation over def-use chains.
+ * <p>
+ * Instead of propagating whole-method facts through every statement,
+ * this solver builds def-use chains in SSA form: it computes the
+ * dominator tree of the CFG, places phi definitions of int variables at
+ * the iterated dominance frontiers of their definitions, and connects
+ * each use to the single (real or phi) definition reaching it by walking
+ * the dominator tree. Then it propagates lattice values
+ * ({@link PackedValue}s) only from definitions to the definitions that
+ * use them, where a phi definition meets the values of its operands.
+ * <p>
+ * No per-statement facts are computed when solving. The facts of a
+ * statement are materialized on demand by walking up the dominator tree
+ * from the statement, and taking for each variable the value of the
+ * nearest definition of it. They are the same as those computed by the
+ * dense solver, so that clients like dead code detection can consume
+ * the result as usual.
+ * <p>
+ * Following the dense analysis, all statements are treated as executable,
+ * i.e., branch conditions are not used to prune control-flow edges.
+ * To this end, the nodes unreachable from the entry are made reachable
+ * from a virtual root, which defines no variables.
+ */
+class SparseCPSolver {
+
+    private final ConstantPropagation analysis;
+
+    private final CFG<Stmt> cfg;
+
+    private final IR ir;
+
+    /**
+     * Number of nodes, i.e., the statements plus the entry and exit.
+     * The virtual root is numbered {@code nodeCount}.
+     */
+    private final int nodeCount;
+
+    /**
+     * Index of the virtual root.
+     */
+    private final int root;
+
+    /**
+     * The nodes, indexed by node index.
+     */
+    private Stmt[] nodes;
+
+    /**
+     * Successors and predecessors of each node (including the root),
+     * indexed by node index.
+     */
+    private int[][] succs, preds;
+
+    /**
+     * Immediate dominator of each node, indexed by node index.
+     */
+    private int[] idom;
+
+    /**
+     * Variable of each definition. Definitions [0, realDefCount) are
+     * made by statements (or by the entry, for parameters), and the
+     * rest are phi definitions.
+     */
+    private Var[] defVars;
+
+    /**
+     * Node of each definition.
+     */
+    private int[] defNodes;
+
+    /**
+     * Number of definitions.
+     */
+    private int defCount;
+
+    /**
+     * Number of definitions made by statements and the entry.
+     */
+    private int realDefCount;
+
+    /**
+     * Definitions made by each node (the entry defines all int
+     * parameters, other nodes define at most one variable).
+     */
+    private int[][] nodeDefs;
+
+    /**
+     * Phi definitions placed at each node.
+     */
+    private int[][] nodePhis;
+
+    /**
+     * The int variables used by each real definition, and the definitions
+     * reaching these uses (or -1 if the use is undefined).
+     */
+    private Var[][] operands;
+
+    private int[][] operandDefs;
+
+    /**
+     * Operands (i.e., the definitions reaching the predecessors) of
+     * each phi definition, indexed by def - realDefCount.
+     */
+    private int[][] phiOperands;
+
+    /**
+     * Lattice values of the definitions.
+     */
+    private long[] values;
+
+    SparseCPSolver(ConstantPropagation analysis, CFG<Stmt> cfg) {
+        this.analysis = analysis;
+        this.cfg = cfg;
+        this.ir = cfg.getIR();
+        this.nodeCount = ir.getStmts().size() + 2;
+        this.root = nodeCount;
+    }
+
+    DataflowResult<Stmt, CPFact> solve() {
+        buildGraph();
+        computeDominators();
+        collectDefinitions();
+        placePhis();
+        rename();
+        propagate();
+        return new Result();
+    }
+
+    /**
+     * Builds the successors and predecessors of nodes in arrays,
+     * and connects the root to the entry and the unreachable nodes.
+     */
+    private void buildGraph() {
+        nodes = new Stmt[nodeCount];
+        succs = new int[nodeCount + 1][];
+        preds = new int[nodeCount + 1][];
+        for (Stmt node : cfg.getNodes()) {
+            nodes[node.getIndex()] = node;
+            succs[node.getIndex()] = cfg.getSuccsOf(node)
+                    .stream().mapToInt(Stmt::getIndex).toArray();
+            preds[node.getIndex()] = cfg.getPredsOf(node)
+                    .stream().mapToInt(Stmt::getIndex).toArray();
+        }
+        int entry = cfg.getEntry().getIndex();
+        BitSet reached = new BitSet(nodeCount);
+        int[] stack = new int[nodeCount];
+        int top = 0;
+        stack[top++] = entry;
+        reached.set(entry);
+        while (top > 0) {
+            for (int succ : succs[stack[--top]]) {
+                if (!reached.get(succ)) {
+                    reached.set(succ);
+                    stack[top++] = succ;
+                }
+            }
+        }
+        // the root reaches the entry, and the nodes unreachable from
+        // the entry, which would otherwise have no dominators
+        int[] rootSuccs = new int[nodeCount - reached.cardinality() + 1];
+        int n = 0;
+        rootSuccs[n++] = entry;
+        for (int node = reached.nextClearBit(0); node < nodeCount;
+             node = reached.nextClearBit(node + 1)) {
+            rootSuccs[n++] = node;
+            preds[node] = Arrays.copyOf(preds[node], preds[node].length + 1);
+            preds[node][preds[node].length - 1] = root;
+        }
+        succs[root] = rootSuccs;
+        preds[root] = new int[0];
+        preds[entry] = Arrays.copyOf(preds[entry], preds[entry].length + 1);
+        preds[entry][preds[entry].length - 1] = root;
+    }
+
+    /**
+     * Computes the immediate dominators by the algorithm of
+     * Cooper, Harvey and Kennedy ("A Simple, Fast Dominance Algorithm").
+     */
+    private void computeDominators() {
+        // reverse postorder from the root
+        int[] order = new int[nodeCount + 1];
+        int[] rpoNumber = new int[nodeCount + 1];
+        int[] stack = new int[nodeCount + 1];
+        int[] next = new int[nodeCount + 1];
+        BitSet visited = new BitSet(nodeCount + 1);
+        int top = 0, count = nodeCount + 1;
+        stack[top++] = root;
+        visited.set(root);
+        while (top > 0) {
+            int node = stack[top - 1];
+            if (next[node] < succs[node].length) {
+                int succ = succs[node][next[node]++];
+                if (!visited.get(succ)) {
+                    visited.set(succ);
+                    stack[top++] = succ;
+                }
+            } else {
+                --top;
+                order[--count] = node;
+                rpoNumber[node] = count;
+            }
+        }
+        idom = new int[nodeCount + 1];
+        Arrays.fill(idom, -1);
+        idom[root] = root;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i <= nodeCount; ++i) {
+                int node = order[i];
+                int newIdom = -1;
+                for (int pred : preds[node]) {
+                    if (idom[pred] != -1) {
+                        newIdom = newIdom == -1 ? pred
+                                : intersect(pred, newIdom, rpoNumber);
+                    }
+                }
+                if (idom[node] != newIdom) {
+                    idom[node] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private int intersect(int n1, int n2, int[] rpoNumber) {
+        while (n1 != n2) {
+            while (rpoNumber[n1] > rpoNumber[n2]) {
+                n1 = idom[n1];
+            }
+            while (rpoNumber[n2] > rpoNumber[n1]) {
+                n2 = idom[n2];
+            }
+        }
+        return n1;
+    }
+
+    private void collectDefinitions() {
+        int capacity = ir.getParams().size() + ir.getStmts().size();
+        defVars = new Var[capacity];
+        defNodes = new int[capacity];
+        nodeDefs = new int[nodeCount + 1][];
+        Arrays.fill(nodeDefs, new int[0]);
+        int entry = cfg.getEntry().getIndex();
+        for (Var param : ir.getParams()) {
+            if (ConstantPropagation.canHoldInt(param)) {
+                addDefinition(param, entry);
+            }
+        }
+        nodeDefs[entry] = rangeOf(0, defCount);
+        for (Stmt stmt : cfg.getNodes()) {
+            if (stmt instanceof DefinitionStmt<?, ?> defStmt
+                    && defStmt.getLValue() instanceof Var var
+                    && ConstantPropagation.canHoldInt(var)) {
+                nodeDefs[stmt.getIndex()] = new int[]{
+                        addDefinition(var, stmt.getIndex())};
+            }
+        }
+        realDefCount = defCount;
+    }
+
+    private int addDefinition(Var var, int node) {
+        if (defCount == defVars.length) {
+            int capacity = defVars.length * 2 + 1;
+            defVars = Arrays.copyOf(defVars, capacity);
+            defNodes = Arrays.copyOf(defNodes, capacity);
+        }
+        int def = defCount++;
+        defVars[def] = var;
+        defNodes[def] = node;
+        return def;
+    }
+
+    private static int[] rangeOf(int from, int to) {
+        int[] range = new int[to - from];
+        Arrays.setAll(range, i -> from + i);
+        return range;
+    }
+
+    /**
+     * Places phi definitions of each variable at the iterated
+     * dominance frontiers of the nodes defining the variable.
+     */
+    private void placePhis() {
+        // dominance frontiers
+        List<List<Integer>> frontiers = new ArrayList<>(nodeCount + 1);
+        for (int i = 0; i <= nodeCount; ++i) {
+            frontiers.add(null);
+        }
+        for (int node = 0; node <= nodeCount; ++node) {
+            if (preds[node] != null && preds[node].length >= 2) {
+                for (int pred : preds[node]) {
+                    for (int runner = pred; runner != idom[node]; runner = idom[runner]) {
+                        List<Integer> frontier = frontiers.get(runner);
+                        if (frontier == null) {
+                            frontier = new ArrayList<>(2);
+                            frontiers.set(runner, frontier);
+                        }
+                        if (frontier.isEmpty()
+                                || frontier.get(frontier.size() - 1) != node) {
+                            frontier.add(node);
+                        }
+                    }
+                }
+            }
+        }
+        // definition nodes of each variable
+        int varCount = ir.getVars().size();
+        int[][] varDefNodes = new int[varCount][];
+        int[] varDefCounts = new int[varCount];
+        for (int def = 0; def < realDefCount; ++def) {
+            ++varDefCounts[defVars[def].getIndex()];
+        }
+        for (int def = 0; def < realDefCount; ++def) {
+            int var = defVars[def].getIndex();
+            if (varDefNodes[var] == null) {
+                varDefNodes[var] = new int[varDefCounts[var]];
+                varDefCounts[var] = 0;
+            }
+            varDefNodes[var][varDefCounts[var]++] = defNodes[def];
+        }
+        // hasPhi[n] == v + 1 iff n has a phi of variable v, and
+        // queued[n] == v + 1 iff n has been added to the work-list for v
+        int[] hasPhi = new int[nodeCount + 1];
+        int[] queued = new int[nodeCount + 1];
+        int[] workList = new int[nodeCount + 1];
+        int[] phiCounts = new int[nodeCount + 1];
+        for (int var = 0; var < varCount; ++var) {
+            if (varDefNodes[var] == null) {
+                continue;
+            }
+            Var v = ir.getVar(var);
+            int size = 0;
+            for (int node : varDefNodes[var]) {
+                if (queued[node] != var + 1) {
+                    queued[node] = var + 1;
+                    workList[size++] = node;
+                }
+            }
+            while (size > 0) {
+                List<Integer> frontier = frontiers.get(workList[--size]);
+                if (frontier != null) {
+                    for (int node : frontier) {
+                        if (hasPhi[node] != var + 1) {
+                            hasPhi[node] = var + 1;
+                            addDefinition(v, node);
+                            ++phiCounts[node];
+                            if (queued[node] != var + 1) {
+                                queued[node] = var + 1;
+                                workList[size++] = node;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        nodePhis = new int[nodeCount + 1][];
+        for (int node = 0; node <= nodeCount; ++node) {
+            nodePhis[node] = new int[phiCounts[node]];
+            phiCounts[node] = 0;
+        }
+        for (int def = realDefCount; def < defCount; ++def) {
+            int node = defNodes[def];
+            nodePhis[node][phiCounts[node]++] = def;
+        }
+    }
+
+    /**
+     * Connects each use to the definition reaching it, by traversing
+     * the dominator tree in preorder and keeping the current definition
+     * of each variable, as the renaming phase of SSA construction.
+     */
+    private void rename() {
+        // children of each node in the dominator tree
+        int[] childStart = new int[nodeCount + 2];
+        for (int node = 0; node <= nodeCount; ++node) {
+            if (node != root && idom[node] != -1) {
+                ++childStart[idom[node] + 1];
+            }
+        }
+        for (int node = 0; node <= nodeCount; ++node) {
+            childStart[node + 1] += childStart[node];
+        }
+        int[] children = new int[childStart[nodeCount + 1]];
+        int[] fill = Arrays.copyOf(childStart, nodeCount + 1);
+        for (int node = 0; node <= nodeCount; ++node) {
+            if (node != root && idom[node] != -1) {
+                children[fill[idom[node]]++] = node;
+            }
+        }
+
+        operands = new Var[realDefCount][];
+        operandDefs = new int[realDefCount][];
+        List<List<Integer>> phiOps = new ArrayList<>(defCount - realDefCount);
+        for (int def = realDefCount; def < defCount; ++def) {
+            phiOps.add(new ArrayList<>(2));
+        }
+        int entry = cfg.getEntry().getIndex();
+        int[] current = new int[ir.getVars().size()];
+        Arrays.fill(current, -1);
+        // the old definitions replaced at each node, restored when
+        // all nodes dominated by the node have been traversed
+        int[] undoVars = new int[defCount];
+        int[] undoDefs = new int[defCount];
+        int undoSize = 0;
+        int[] undoStart = new int[nodeCount + 1];
+        int[] stack = new int[nodeCount + 1];
+        int[] next = new int[nodeCount + 1];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[top - 1];
+            if (next[node] == 0) {
+                // enters the node
+                undoStart[node] = undoSize;
+                for (int phi : nodePhis[node]) {
+                    int var = defVars[phi].getIndex();
+                    undoVars[undoSize] = var;
+                    undoDefs[undoSize++] = current[var];
+                    current[var] = phi;
+                }
+                for (int def : nodeDefs[node]) {
+                    if (node != entry) {
+                        linkOperands(def, current);
+                    }
+                    int var = defVars[def].getIndex();
+                    undoVars[undoSize] = var;
+                    undoDefs[undoSize++] = current[var];
+                    current[var] = def;
+                }
+                for (int succ : succs[node]) {
+                    for (int phi : nodePhis[succ]) {
+                        int def = current[defVars[phi].getIndex()];
+                        if (def != -1) {
+                            phiOps.get(phi - realDefCount).add(def);
+                        }
+                    }
+                }
+            }
+            if (childStart[node] + next[node] < childStart[node + 1]) {
+                stack[top++] = children[childStart[node] + next[node]++];
+            } else {
+                // leaves the node
+                --top;
+                while (undoSize > undoStart[node]) {
+                    --undoSize;
+                    current[undoVars[undoSize]] = undoDefs[undoSize];
+                }
+            }
+        }
+        phiOperands = new int[defCount - realDefCount][];
+        for (int i = 0; i < phiOperands.length; ++i) {
+            phiOperands[i] = phiOps.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Records the int variables used by given definition, and the
+     * current definitions of the variables, which reach the uses.
+     */
+    private void linkOperands(int def, int[] current) {
+        Stmt stmt = nodes[defNodes[def]];
+        Var[] vars = stmt.getUses()
+                .stream()
+                .filter(use -> use instanceof Var var
+                        && ConstantPropagation.canHoldInt(var))
+                .distinct()
+                .toArray(Var[]::new);
+        operands[def] = vars;
+        operandDefs[def] = new int[vars.length];
+        for (int i = 0; i < vars.length; ++i) {
+            operandDefs[def][i] = current[vars[i].getIndex()];
+        }
+    }
+
+    private void propagate() {
+        values = new long[defCount];
+        // def-use chains in compressed form: the users of definition d
+        // are users[userStart[d]] ... users[userStart[d + 1] - 1]
+        int[] userStart = new int[defCount + 1];
+        for (int def = 0; def < defCount; ++def) {
+            for (int d : operandsOf(def)) {
+                if (d != -1) {
+                    ++userStart[d + 1];
+                }
+            }
+        }
+        for (int def = 0; def < defCount; ++def) {
+            userStart[def + 1] += userStart[def];
+        }
+        int[] users = new int[userStart[defCount]];
+        int[] fill = Arrays.copyOf(userStart, defCount);
+        for (int def = 0; def < defCount; ++def) {
+            for (int d : operandsOf(def)) {
+                if (d != -1) {
+                    users[fill[d]++] = def;
+                }
+            }
+        }
+
+        IndexedCPFact operandValues = new IndexedCPFact(ir::getVar, ir.getVars().size());
+        int[] workList = new int[defCount];
+        int head = 0, size = 0;
+        BitSet inWorkList = new BitSet(defCount);
+        for (int def = 0; def < defCount; ++def) {
+            if (def < realDefCount && operands[def] == null) {
+                // the parameters are defined at the entry
+                values[def] = PackedValue.NAC;
+            } else {
+                workList[size++] = def;
+                inWorkList.set(def);
+            }
+        }
+        while (size > 0) {
+            int def = workList[head];
+            head = (head + 1) % defCount;
+            --size;
+            inWorkList.clear(def);
+            long newValue;
+            if (def < realDefCount) {
+                Var[] vars = operands[def];
+                for (int i = 0; i < vars.length; ++i) {
+                    int d = operandDefs[def][i];
+                    operandValues.updatePacked(vars[i].getIndex(),
+                            d == -1 ? PackedValue.UNDEF : values[d]);
+                }
+                RValue exp = ((DefinitionStmt<?, ?>) nodes[defNodes[def]]).getRValue();
+                newValue = ConstantPropagation.evaluatePacked(exp, operandValues);
+                for (Var var : vars) {
+                    operandValues.updatePacked(var.getIndex(), PackedValue.UNDEF);
+                }
+            } else {
+                newValue = PackedValue.UNDEF;
+                for (int d : phiOperands[def - realDefCount]) {
+                    newValue = PackedValue.meet(newValue, values[d]);
+                }
+            }
+            if (newValue != values[def]) {
+                values[def] = newValue;
+                for (int i = userStart[def]; i < userStart[def + 1]; ++i) {
+                    int user = users[i];
+                    if (!inWorkList.get(user)) {
+                        inWorkList.set(user);
+                        workList[(head + size) % defCount] = user;
+                        ++size;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the definitions used by given definition.
+     */
+    private int[] operandsOf(int def) {
+        if (def < realDefCount) {
+            return operandDefs[def] == null ? new int[0] : operandDefs[def];
+        } else {
+            return phiOperands[def - realDefCount];
+        }
+    }
+
+    /**
+     * @return the fact at the entry (or exit, if {@code out} is true)
+     * of given node, holding for each variable the value of its nearest
+     * definition in the dominator tree.
+     */
+    private CPFact makeFact(int node, boolean out) {
+        CPFact fact = analysis.newInitialFact(cfg);
+        BitSet resolved = new BitSet(ir.getVars().size());
+        if (out) {
+            resolve(fact, resolved, nodeDefs[node]);
+        }
+        for (int n = node; n != root; ) {
+            resolve(fact, resolved, nodePhis[n]);
+            n = idom[n];
+            resolve(fact, resolved, nodeDefs[n]);
+        }
+        return fact;
+    }
+
+    private void resolve(CPFact fact, BitSet resolved, int[] defs) {
+        for (int def : defs) {
+            int index = defVars[def].getIndex();
+            if (!resolved.get(index)) {
+                resolved.set(index);
+                long value = values[def];
+                if (PackedValue.isUndef(value)) {
+                    continue;
+                }
+                if (fact instanceof IndexedCPFact indexed) {
+                    indexed.updatePacked(index, value);
+                } else {
+                    fact.update(defVars[def], PackedValue.unpack(value));
+                }
+            }
+        }
+    }
+
+    /**
+     * Materializes the facts of nodes on demand. The facts of a node
+     * are computed when they are queried at the first time.
+     */
+    private class Result implements DataflowResult<Stmt, CPFact> {
+
+        private final CPFact[] inFacts = new CPFact[nodeCount];
+
+        private final CPFact[] outFacts = new CPFact[nodeCount];
+
+        @Override
+        public CPFact getInFact(Stmt node) {
+            int index = node.getIndex();
+            if (inFacts[index] == null) {
+                inFacts[index] = makeFact(index, false);
+            }
+            return inFacts[index];
+        }
+
+        @Override
+        public void setInFact(Stmt node, CPFact fact) {
+            inFacts[node.getIndex()] = fact;
+        }
+
+        @Override
+        public CPFact getOutFact(Stmt node) {
+            int index = node.getIndex();
+            if (outFacts[index] == null) {
+                outFacts[index] = makeFact(index, true);
+            }
+            return outFacts[index];
+        }
+
+        @Override
+        public void setOutFact(Stmt node, CPFact fact) {
+            outFacts[node.getIndex()] = fact;
+        }
+    }
+}
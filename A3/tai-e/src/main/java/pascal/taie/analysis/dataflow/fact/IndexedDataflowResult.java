@@ -0,0 +1,137 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexable;
+
+import java.util.Arrays;
+
+/**
+ * A {@link DataflowResult} for the nodes which are {@link Indexable},
+ * e.g., {@link pascal.taie.ir.stmt.Stmt}. The facts are stored in arrays
+ * addressed by the indexes of the nodes, so that querying and updating
+ * the facts need neither hashing nor map entries.
+ * <p>
+ * The node of each index is also stored, so that after the nodes are
+ * re-indexed (e.g., the statements of an IR are changed), the facts are
+ * still associated with their nodes, see {@link #reindex()}.
+ *
+ * @param <Node> type of nodes
+ * @param <Fact> type of data-flow facts
+ */
+public class IndexedDataflowResult<Node extends Indexable, Fact>
+        implements DataflowResult<Node, Fact> {
+
+    private Object[] nodes;
+
+    private Object[] inFacts;
+
+    private Object[] outFacts;
+
+    /**
+     * @param capacity the expected number of nodes, i.e.,
+     *                 the maximum index of the nodes plus one.
+     */
+    public IndexedDataflowResult(int capacity) {
+        nodes = new Object[capacity];
+        inFacts = new Object[capacity];
+        outFacts = new Object[capacity];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getInFact(Node node) {
+        int index = node.getIndex();
+        return holds(node, index) ? (Fact) inFacts[index] : null;
+    }
+
+    @Override
+    public void setInFact(Node node, Fact fact) {
+        int index = prepare(node);
+        inFacts[index] = fact;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getOutFact(Node node) {
+        int index = node.getIndex();
+        return holds(node, index) ? (Fact) outFacts[index] : null;
+    }
+
+    @Override
+    public void setOutFact(Node node, Fact fact) {
+        int index = prepare(node);
+        outFacts[index] = fact;
+    }
+
+    /**
+     * Moves the facts to the current indexes of their nodes, after the
+     * nodes have been re-indexed. If several nodes have the same index now
+     * (e.g., a removed statement keeps its old index), the facts of only
+     * one of them are kept, and the others have no facts.
+     */
+    public void reindex() {
+        Object[] oldNodes = nodes, oldInFacts = inFacts, oldOutFacts = outFacts;
+        nodes = new Object[oldNodes.length];
+        inFacts = new Object[oldNodes.length];
+        outFacts = new Object[oldNodes.length];
+        for (int i = 0; i < oldNodes.length; ++i) {
+            if (oldNodes[i] != null) {
+                @SuppressWarnings("unchecked")
+                Node node = (Node) oldNodes[i];
+                int index = prepare(node);
+                inFacts[index] = oldInFacts[i];
+                outFacts[index] = oldOutFacts[i];
+            }
+        }
+    }
+
+    /**
+     * @return true if the slot of given index holds the facts of given node.
+     */
+    private boolean holds(Node node, int index) {
+        return index < nodes.length && nodes[index] == node;
+    }
+
+    /**
+     * Makes the slot of given node hold the facts of the node. If the slot
+     * held the facts of another node, the facts are discarded.
+     *
+     * @return the index of given node.
+     */
+    private int prepare(Node node) {
+        int index = node.getIndex();
+        if (index >= nodes.length) {
+            int capacity = Math.max(index + 1, nodes.length * 2);
+            nodes = Arrays.copyOf(nodes, capacity);
+            inFacts = Arrays.copyOf(inFacts, capacity);
+            outFacts = Arrays.copyOf(outFacts, capacity);
+        }
+        if (nodes[index] != node) {
+            nodes[index] = node;
+            inFacts[index] = null;
+            outFacts[index] = null;
+        }
+        return index;
+    }
+}
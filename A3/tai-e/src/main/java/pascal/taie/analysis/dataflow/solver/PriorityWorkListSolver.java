@@ -0,0 +1,163 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Work-list solver which always picks the node with the smallest rank
+ * from the work list, where the nodes are ranked by reverse postorder
+ * (for forward analysis) or postorder (for backward analysis) of the CFG.
+ * In this order, a node is processed after its predecessors (successors
+ * for backward analysis) except along back edges, which reduces the
+ * times that the nodes in loop bodies are re-visited.
+ */
+class PriorityWorkListSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    PriorityWorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                  Collection<Node> initial) {
+        solveInOrder(this, cfg, result, initial, null);
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                   Collection<Node> initial) {
+        solveInOrder(this, cfg, result, initial, null);
+    }
+
+    /**
+     * Solves the data-flow problem by given solver, processing the nodes
+     * in reverse postorder (postorder for backward analysis).
+     *
+     * @param initial the nodes initially in the work list
+     * @param stale   the nodes whose facts are kept from the previous solving,
+     *                or null if the problem is solved from scratch, see
+     *                {@link Solver#visitNode(CFG, DataflowResult, Object, Set)}
+     */
+    static <Node, Fact> void solveInOrder(
+            Solver<Node, Fact> solver, CFG<Node> cfg, DataflowResult<Node, Fact> result,
+            Collection<Node> initial, @Nullable Set<Node> stale) {
+        boolean forward = solver.analysis.isForward();
+        List<Node> nodes = postorder(cfg);
+        if (forward) {
+            Collections.reverse(nodes);
+        }
+        Map<Node, Integer> ranks = rank(nodes);
+        BitSet worklist = newWorkList(initial, ranks);
+        int i;
+        while ((i = worklist.nextSetBit(0)) >= 0) {
+            worklist.clear(i);
+            Node node = nodes.get(i);
+            if (solver.visitNode(cfg, result, node, stale)) {
+                (forward ? cfg.getSuccsOf(node) : cfg.getPredsOf(node))
+                        .forEach(next -> worklist.set(ranks.get(next)));
+            }
+        }
+    }
+
+    /**
+     * @return the nodes of given CFG in postorder of the depth-first search
+     * starting from the entry node. The nodes which are unreachable from
+     * the entry (e.g., dead code) are appended by the subsequent searches
+     * starting from them.
+     */
+    private static <Node> List<Node> postorder(CFG<Node> cfg) {
+        List<Node> order = new ArrayList<>(cfg.getNumberOfNodes());
+        Set<Node> visited = Sets.newSet(cfg.getNumberOfNodes());
+        dfs(cfg, cfg.getEntry(), visited, order);
+        for (Node node : cfg) {
+            if (!visited.contains(node)) {
+                dfs(cfg, node, visited, order);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Iterative depth-first search, so that large methods
+     * do not overflow the call stack.
+     */
+    private static <Node> void dfs(CFG<Node> cfg, Node root,
+                                   Set<Node> visited, List<Node> order) {
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<Iterator<Node>> succs = new ArrayDeque<>();
+        visited.add(root);
+        nodes.push(root);
+        succs.push(cfg.getSuccsOf(root).iterator());
+        while (!nodes.isEmpty()) {
+            Iterator<Node> it = succs.peek();
+            if (it.hasNext()) {
+                Node succ = it.next();
+                if (visited.add(succ)) {
+                    nodes.push(succ);
+                    succs.push(cfg.getSuccsOf(succ).iterator());
+                }
+            } else {
+                order.add(nodes.pop());
+                succs.pop();
+            }
+        }
+    }
+
+    /**
+     * @return the work list holding the ranks of given nodes.
+     */
+    private static <Node> BitSet newWorkList(Collection<Node> nodes,
+                                             Map<Node, Integer> ranks) {
+        BitSet worklist = new BitSet(ranks.size());
+        nodes.forEach(node -> worklist.set(ranks.get(node)));
+        return worklist;
+    }
+
+    /**
+     * @return map from each node to its index in given list.
+     */
+    private static <Node> Map<Node, Integer> rank(List<Node> nodes) {
+        Map<Node, Integer> ranks = Maps.newMap(nodes.size());
+        for (int i = 0; i < nodes.size(); ++i) {
+            ranks.put(nodes.get(i), i);
+        }
+        return ranks;
+    }
+}
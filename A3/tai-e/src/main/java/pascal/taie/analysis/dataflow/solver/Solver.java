@@ -24,7 +24,20 @@ package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.IndexedDataflowResult;
+import pascal.taie.analysis.dataflow.fact.MapDataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.Stmt;
+
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Base class for data-flow analysis solver, which provides common
@@ -37,6 +50,13 @@ public abstract class Solver<Node, Fact> {
 
     protected final DataflowAnalysis<Node, Fact> analysis;
 
+    /**
+     * Number of node transfers performed by this solver.
+     * A solver may be shared by the threads analyzing different methods,
+     * thus we use {@link LongAdder} to count the transfers.
+     */
+    private final LongAdder nodeTransfers = new LongAdder();
+
     protected Solver(DataflowAnalysis<Node, Fact> analysis) {
         this.analysis = analysis;
     }
@@ -49,6 +69,33 @@ public abstract class Solver<Node, Fact> {
         return new WorkListSolver<>(analysis);
     }
 
+    /**
+     * Static factory method to create a new solver for given analysis,
+     * whose work list processes the nodes in given order.
+     *
+     * @param worklist order of the work list, "fifo" (default) processes
+     *                 nodes in first-in-first-out order, and "rpo" processes
+     *                 nodes in reverse postorder (postorder for backward
+     *                 analysis) of the CFG.
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, @Nullable String worklist) {
+        if (worklist == null || worklist.equals("fifo")) {
+            return makeSolver(analysis);
+        } else if (worklist.equals("rpo")) {
+            return new PriorityWorkListSolver<>(analysis);
+        } else {
+            throw new ConfigException("Unknown work list order: " + worklist);
+        }
+    }
+
+    /**
+     * @return the number of node transfers performed by this solver so far.
+     */
+    public long getNodeTransferCount() {
+        return nodeTransfers.sum();
+    }
+
     /**
      * Starts this solver on the given CFG.
      *
@@ -57,7 +104,73 @@ public abstract class Solver<Node, Fact> {
      */
     public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
         DataflowResult<Node, Fact> result = initialize(cfg);
-        doSolve(cfg, result);
+        doSolve(cfg, result, cfg.getNodes());
+        return result;
+    }
+
+    /**
+     * Incrementally re-solves the data-flow problem after given CFG
+     * has been changed, reusing the result of the previous solving.
+     * <p>
+     * The facts in the previous result are associated with the nodes
+     * (statements) themselves rather than their indexes, so the nodes may
+     * be re-indexed by the change. The facts of the changed nodes and the
+     * new nodes (i.e., the nodes without facts) are reset, and the work list
+     * is seeded with only these nodes, the neighbors of the new nodes, and
+     * the successors (predecessors for backward analysis) of the changed
+     * nodes; the changes spread to other nodes as usual. When a node is visited
+     * at the first time, its facts are re-computed from scratch instead of
+     * being met with the stale ones. As the nodes are processed in reverse
+     * postorder (postorder for backward analysis), the result is the same
+     * as the one of solving from scratch, except that for the changes
+     * reaching loops, the stale facts flowing along back edges may be kept,
+     * i.e., the result is still a fixed point (thus sound) but may be less
+     * precise. Call {@link #solve(CFG)} if the most precise result is needed.
+     * <p>
+     * The changed nodes must include the nodes whose statements have been
+     * changed, and the nodes whose edges to the old nodes have been changed.
+     *
+     * @param cfg          the changed control-flow graph
+     * @param result       the result of the previous solving, which is
+     *                     updated in place
+     * @param changedNodes the nodes that have been changed
+     * @return the updated analysis result
+     */
+    public DataflowResult<Node, Fact> solve(
+            CFG<Node> cfg, DataflowResult<Node, Fact> result,
+            Collection<Node> changedNodes) {
+        if (result instanceof IndexedDataflowResult<?, ?> indexed) {
+            indexed.reindex();
+        }
+        Set<Node> changed = Sets.newSet(changedNodes.size());
+        changed.addAll(changedNodes);
+        List<Node> seeds = new ArrayList<>();
+        Set<Node> stale = Sets.newSet(cfg.getNumberOfNodes());
+        for (Node node : cfg) {
+            if (result.getInFact(node) == null || result.getOutFact(node) == null) {
+                // the edges from/to a new node are new
+                seeds.addAll(cfg.getPredsOf(node));
+                seeds.addAll(cfg.getSuccsOf(node));
+                changed.add(node);
+            }
+        }
+        for (Node node : cfg) {
+            if (changed.contains(node)) {
+                initializeNode(cfg, result, node);
+                seeds.add(node);
+                // the new output of a changed node may equal the initial
+                // fact, in which case visiting the node does not propagate
+                // to the neighbors whose facts come from its old output
+                seeds.addAll(analysis.isForward() ?
+                        cfg.getSuccsOf(node) : cfg.getPredsOf(node));
+            } else {
+                stale.add(node);
+            }
+        }
+        // the nodes are processed in (reverse) postorder, so that a node
+        // is re-computed after its predecessors (successors for backward
+        // analysis) except along back edges
+        PriorityWorkListSolver.solveInOrder(this, cfg, result, seeds, stale);
         return result;
     }
 
@@ -67,7 +180,7 @@ public abstract class Solver<Node, Fact> {
      * @return the initialized data-flow result
      */
     private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = new DataflowResult<>();
+        DataflowResult<Node, Fact> result = newResult(cfg);
         if (analysis.isForward()) {
             initializeForward(cfg, result);
         } else {
@@ -76,40 +189,137 @@ public abstract class Solver<Node, Fact> {
         return result;
     }
 
+    /**
+     * Creates an empty data-flow result for given CFG. For the CFGs of
+     * {@link Stmt}s, the result stores facts in arrays addressed by
+     * {@link Stmt#getIndex()}, otherwise, it stores facts in maps.
+     */
+    @SuppressWarnings("unchecked")
+    protected DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        if (cfg.getEntry() instanceof Stmt) {
+            // the entry and exit nodes of CFG are indexed
+            // right after the statements of the IR
+            int capacity = cfg.getIR().getStmts().size() + 2;
+            return (DataflowResult<Node, Fact>) (DataflowResult<?, Fact>)
+                    new IndexedDataflowResult<Stmt, Fact>(capacity);
+        } else {
+            return new MapDataflowResult<>();
+        }
+    }
+
+    /**
+     * Resets the facts of given node to their initial states.
+     */
+    private void initializeNode(CFG<Node> cfg, DataflowResult<Node, Fact> result, Node node) {
+        result.setInFact(node, analysis.isForward() ?
+                analysis.newInitialFact(cfg) : newOutputFact(cfg, node));
+        result.setOutFact(node, analysis.isForward() ?
+                newOutputFact(cfg, node) : analysis.newInitialFact(cfg));
+    }
+
+    /**
+     * @return a new fact flowing out of given node along the direction
+     * of the analysis, i.e., the boundary fact for the entry (exit for
+     * backward analysis), and the initial fact for other nodes.
+     */
+    private Fact newOutputFact(CFG<Node> cfg, Node node) {
+        boolean boundary = analysis.isForward() ? cfg.isEntry(node) : cfg.isExit(node);
+        return boundary ? analysis.newBoundaryFact(cfg) : analysis.newInitialFact(cfg);
+    }
+
     protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         result.setOutFact(cfg.getEntry(), analysis.newBoundaryFact(cfg));
-        result.setInFact(cfg.getEntry(), analysis.newInitialFact());
+        result.setInFact(cfg.getEntry(), analysis.newInitialFact(cfg));
         for (Node node : cfg.getNodes()) {
             if (!cfg.isEntry(node)) {
-                result.setInFact(node, analysis.newInitialFact());
-                result.setOutFact(node, analysis.newInitialFact());
+                result.setInFact(node, analysis.newInitialFact(cfg));
+                result.setOutFact(node, analysis.newInitialFact(cfg));
             }
         }
     }
 
     protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         result.setInFact(cfg.getExit(), analysis.newBoundaryFact(cfg));
-        result.setOutFact(cfg.getExit(), analysis.newInitialFact());
+        result.setOutFact(cfg.getExit(), analysis.newInitialFact(cfg));
         for (Node node: cfg.getNodes()) {
             if (!cfg.isExit(node)) {
-                result.setInFact(node, analysis.newInitialFact());
-                result.setOutFact(node, analysis.newInitialFact());
+                result.setInFact(node, analysis.newInitialFact(cfg));
+                result.setOutFact(node, analysis.newInitialFact(cfg));
             }
         }
     }
 
     /**
      * Solves the data-flow problem for given CFG.
+     *
+     * @param nodes the nodes initially in the work list
      */
-    private void doSolve(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+    private void doSolve(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                         Collection<Node> nodes) {
         if (analysis.isForward()) {
-            doSolveForward(cfg, result);
+            doSolveForward(cfg, result, nodes);
+        } else {
+            doSolveBackward(cfg, result, nodes);
+        }
+    }
+
+    /**
+     * Meets the facts flowing into given node, and applies the node transfer
+     * function. If the node is stale, i.e., its facts are kept from the
+     * previous solving, its facts are re-computed from scratch and the node
+     * is no longer stale.
+     *
+     * @return true if the fact flowing out of the node (along the direction
+     * of the analysis) has changed.
+     */
+    protected boolean visitNode(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                Node node, @Nullable Set<Node> stale) {
+        boolean forward = analysis.isForward();
+        boolean refresh = stale != null && stale.remove(node);
+        Fact in = forward ? result.getInFact(node) : result.getOutFact(node);
+        if (refresh) {
+            in = analysis.newInitialFact(cfg);
+        }
+        for (Node next : forward ? cfg.getPredsOf(node) : cfg.getSuccsOf(node)) {
+            analysis.meetInto(forward ? result.getOutFact(next)
+                    : result.getInFact(next), in);
+        }
+        if (!refresh) {
+            return forward ? transferNode(node, in, result.getOutFact(node))
+                    : transferNode(node, result.getInFact(node), in);
+        }
+        Fact oldOut = forward ? result.getOutFact(node) : result.getInFact(node);
+        Fact out = newOutputFact(cfg, node);
+        if (forward) {
+            transferNode(node, in, out);
+            result.setInFact(node, in);
+            result.setOutFact(node, out);
         } else {
-            doSolveBackward(cfg, result);
+            transferNode(node, out, in);
+            result.setOutFact(node, in);
+            result.setInFact(node, out);
         }
+        return !out.equals(oldOut);
     }
 
-    protected abstract void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+    /**
+     * Applies the node transfer function of the analysis,
+     * and records the transfer in the counter.
+     */
+    protected boolean transferNode(Node node, Fact in, Fact out) {
+        nodeTransfers.increment();
+        return analysis.transferNode(node, in, out);
+    }
 
-    protected abstract void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+    /**
+     * @param nodes the nodes initially in the work list
+     */
+    protected abstract void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                           Collection<Node> nodes);
+
+    /**
+     * @param nodes the nodes initially in the work list
+     */
+    protected abstract void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                            Collection<Node> nodes);
 }
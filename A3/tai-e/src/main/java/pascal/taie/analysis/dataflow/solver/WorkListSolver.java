@@ -26,6 +26,7 @@ import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
 
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.Queue;
 
@@ -36,15 +37,16 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
     }
 
     @Override
-    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        Queue<Node> worklist = new LinkedList<>(cfg.getNodes());
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                  Collection<Node> nodes) {
+        Queue<Node> worklist = new LinkedList<>(nodes);
         Node node;
         while (!worklist.isEmpty()) {
             node = worklist.remove();
             for (Node predecessor : cfg.getPredsOf(node)) {
                 analysis.meetInto(result.getOutFact(predecessor), result.getInFact(node));
             }
-            if (analysis.transferNode(node, result.getInFact(node), result.getOutFact(node))) {
+            if (transferNode(node, result.getInFact(node), result.getOutFact(node))) {
                 cfg.getSuccsOf(node).forEach(successor -> {
                     if (!worklist.contains(successor)) {
                         worklist.offer(successor);
@@ -55,15 +57,16 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
     }
 
     @Override
-    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        Queue<Node> worklist = new LinkedList<>(cfg.getNodes());
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                   Collection<Node> nodes) {
+        Queue<Node> worklist = new LinkedList<>(nodes);
         Node node;
         while (!worklist.isEmpty()) {
             node = worklist.remove();
             for (Node successor : cfg.getSuccsOf(node)) {
                 analysis.meetInto(result.getInFact(successor), result.getOutFact(node));
             }
-            if (analysis.transferNode(node, result.getInFact(node), result.getOutFact(node))) {
+            if (transferNode(node, result.getInFact(node), result.getOutFact(node))) {
                 cfg.getPredsOf(node).forEach(successor -> {
                     if (!worklist.contains(successor)) {
                         worklist.offer(successor);
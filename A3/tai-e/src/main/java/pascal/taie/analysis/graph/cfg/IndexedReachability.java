@@ -0,0 +1,134 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.util.Indexable;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Breadth-first traversal of a CFG whose nodes are {@link Indexable},
+ * e.g., the CFGs of {@link pascal.taie.ir.stmt.Stmt}. The work list is
+ * an array of node indexes and the visited nodes are marked in a bit set,
+ * so the traversal neither allocates per node nor compares nodes, which
+ * makes it cheap for large methods.
+ * <p>
+ * Clients decide which successors (or predecessors, for backward
+ * traversals) of a node are followed, e.g., dead code detection only
+ * follows the feasible targets of the branches. An instance can be reused
+ * for many traversals of the same CFG, and the nodes reached by the last
+ * traversal are kept until the next one.
+ *
+ * @param <N> type of CFG nodes
+ */
+public class IndexedReachability<N extends Indexable> {
+
+    private final CFG<N> cfg;
+
+    /**
+     * Nodes of the CFG, addressed by their indexes.
+     */
+    private final Object[] nodes;
+
+    /**
+     * Indexes of the nodes to be visited. Each node is added at most once
+     * per traversal, so the queue never overflows.
+     */
+    private final int[] queue;
+
+    private int tail;
+
+    private final BitSet reached;
+
+    private final Consumer<N> reach = this::reach;
+
+    public IndexedReachability(CFG<N> cfg) {
+        this.cfg = cfg;
+        int capacity = 0;
+        for (N node : cfg) {
+            capacity = Math.max(capacity, node.getIndex() + 1);
+        }
+        nodes = new Object[capacity];
+        for (N node : cfg) {
+            nodes[node.getIndex()] = node;
+        }
+        queue = new int[capacity];
+        reached = new BitSet(capacity);
+    }
+
+    /**
+     * Traverses the CFG from given node along all outgoing edges.
+     *
+     * @return the indexes of the nodes reachable from {@code source}.
+     */
+    public BitSet traverse(N source) {
+        return traverse(List.of(source), (node, action) ->
+                cfg.getSuccsOf(node).forEach(action));
+    }
+
+    /**
+     * Traverses the CFG from given nodes. For each reached node,
+     * {@code successors} is given the node and an action, and it applies
+     * the action to the nodes which should be reached from the node.
+     *
+     * @return the indexes of the reached nodes, including the sources.
+     * The returned bit set is owned by this object, and it is changed
+     * by the next traversal.
+     */
+    public BitSet traverse(Iterable<N> sources,
+                           BiConsumer<N, Consumer<N>> successors) {
+        reached.clear();
+        tail = 0;
+        sources.forEach(reach);
+        for (int head = 0; head < tail; ++head) {
+            successors.accept(getNode(queue[head]), reach);
+        }
+        return reached;
+    }
+
+    private void reach(N node) {
+        int index = node.getIndex();
+        if (!reached.get(index)) {
+            reached.set(index);
+            queue[tail++] = index;
+        }
+    }
+
+    /**
+     * @return true if given node is reached by the last traversal.
+     */
+    public boolean isReached(N node) {
+        return reached.get(node.getIndex());
+    }
+
+    /**
+     * @return the node of given index.
+     */
+    @SuppressWarnings("unchecked")
+    public N getNode(int index) {
+        return (N) nodes[index];
+    }
+}
@@ -33,6 +33,21 @@ public class CPTest {
                 ConstantPropagation.ID, "edge-refine:false");
     }
 
+    void testCPWithRPO(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/constprop/",
+                ConstantPropagation.ID, "edge-refine:false;worklist:rpo");
+    }
+
+    void testCPIndexed(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/constprop/",
+                ConstantPropagation.ID, "edge-refine:false;fact:indexed");
+    }
+
+    void testCPSparse(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/constprop/",
+                ConstantPropagation.ID, "edge-refine:false;sparse:true");
+    }
+
     @Test
     public void testAssign() {
         testCP("Assign");
@@ -58,11 +73,21 @@ public class CPTest {
         testCP("SimpleChar");
     }
 
+    @Test
+    public void testSimpleBinaryIndexed() {
+        testCPIndexed("SimpleBinary");
+    }
+
     @Test
     public void testBranchConstant() {
         testCP("BranchConstant");
     }
 
+    @Test
+    public void testBranchConstantSparse() {
+        testCPSparse("BranchConstant");
+    }
+
     @Test
     public void testInterprocedural() {
         testCP("Interprocedural");
@@ -72,4 +97,19 @@ public class CPTest {
     public void testLoop() {
         testCP("Loop");
     }
+
+    @Test
+    public void testLoopWithRPO() {
+        testCPWithRPO("Loop");
+    }
+
+    @Test
+    public void testLoopIndexed() {
+        testCPIndexed("Loop");
+    }
+
+    @Test
+    public void testLoopSparse() {
+        testCPSparse("Loop");
+    }
 }
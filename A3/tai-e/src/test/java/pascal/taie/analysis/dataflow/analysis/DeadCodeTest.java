@@ -22,8 +22,20 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.Main;
 import pascal.taie.analysis.Tests;
+import pascal.taie.util.AnalysisException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
 
 public class DeadCodeTest {
 
@@ -34,6 +46,57 @@ public class DeadCodeTest {
                 "-a", "constprop=edge-refine:false");
     }
 
+    void testDCDWithSparseCP(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false",
+                "-a", "constprop=edge-refine:false;sparse:true");
+    }
+
+    void testFusedDCD(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID, "fused:true");
+    }
+
+    /**
+     * Checks that the reported dead code (in given format) is the same
+     * as the expected results.
+     */
+    void testReport(String inputClass, String format) throws IOException {
+        String dir = "src/test/resources/dataflow/deadcode/";
+        File report = File.createTempFile(inputClass, "-deadcode." + format);
+        report.deleteOnExit();
+        Main.main(new String[]{"-pp", "-cp", dir, "-m", inputClass,
+                "-a", DeadCodeDetection.ID + "=fused:true;report:" + report +
+                ";report-format:" + format});
+        Set<String> expected = new HashSet<>();
+        String method = null;
+        for (String line : Files.readAllLines(Path.of(dir,
+                inputClass + "-" + DeadCodeDetection.ID + "-expected.txt"))) {
+            if (line.startsWith("----------")) {
+                method = line.substring(line.indexOf('<'), line.indexOf("> (") + 1);
+            } else if (!line.isBlank()) {
+                expected.add(method + " " + line);
+            }
+        }
+        Set<String> given = new HashSet<>();
+        if (format.equals("jsonl")) {
+            ObjectMapper mapper = new ObjectMapper();
+            Set<String> methods = new HashSet<>();
+            for (String line : Files.readAllLines(report.toPath())) {
+                JsonNode record = mapper.readTree(line);
+                String m = record.get("method").asText();
+                // each method has at most one record
+                Assert.assertTrue(methods.add(m));
+                record.get("deadCode").forEach(stmt ->
+                        given.add(m + " " + stmt.asText()));
+            }
+        } else {
+            given.addAll(Files.readAllLines(report.toPath()));
+        }
+        Assert.assertEquals(expected, given);
+    }
+
     @Test
     public void testControlFlowUnreachable() {
         testDCD("ControlFlowUnreachable");
@@ -44,6 +107,11 @@ public class DeadCodeTest {
         testDCD("UnreachableIfBranch");
     }
 
+    @Test
+    public void testUnreachableIfBranchWithSparseCP() {
+        testDCDWithSparseCP("UnreachableIfBranch");
+    }
+
     @Test
     public void testUnreachableSwitchBranch() {
         testDCD("UnreachableSwitchBranch");
@@ -59,6 +127,50 @@ public class DeadCodeTest {
         testDCD("Loops");
     }
 
+    @Test
+    public void testDeadAssignmentFused() {
+        testFusedDCD("DeadAssignment");
+    }
+
+    @Test
+    public void testLoopsFused() {
+        testFusedDCD("Loops");
+    }
+
+    @Test
+    public void testDeadAssignmentReport() throws IOException {
+        testReport("DeadAssignment", "line");
+    }
+
+    @Test
+    public void testUnreachableSwitchBranchReport() throws IOException {
+        testReport("UnreachableSwitchBranch", "line");
+    }
+
+    @Test
+    public void testLoopsJsonlReport() throws IOException {
+        testReport("Loops", "jsonl");
+    }
+
+    @Test
+    public void testUnreachableSwitchBranchJsonlReport() throws IOException {
+        testReport("UnreachableSwitchBranch", "jsonl");
+    }
+
+    /**
+     * No results are kept for process-result when the dead code is reported.
+     */
+    @Test(expected = AnalysisException.class)
+    public void testReportWithResultProcessing() throws IOException {
+        File report = File.createTempFile("DeadAssignment", "-deadcode.txt");
+        report.deleteOnExit();
+        Main.main(new String[]{"-pp",
+                "-cp", "src/test/resources/dataflow/deadcode/",
+                "-m", "DeadAssignment",
+                "-a", DeadCodeDetection.ID + "=fused:true;report:" + report,
+                "-a", "process-result=analyses:[" + DeadCodeDetection.ID + "]"});
+    }
+
     @Test
     public void testNotDead() {
         testDCD("NotDead");
@@ -0,0 +1,132 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class IntraDataflowDriverTest {
+
+    private static Map<String, Map<String, Object>> analyses() {
+        Map<String, Map<String, Object>> analyses = new LinkedHashMap<>();
+        analyses.put(ConstantPropagation.ID, Map.of("edge-refine", false));
+        analyses.put(LiveVariableAnalysis.ID, Map.of("strongly", false));
+        analyses.put(DeadCodeDetection.ID, Map.of());
+        return analyses;
+    }
+
+    private static IntraDataflowDriver makeDriver(
+            int parallelism, Map<String, Map<String, Object>> analyses) {
+        Map<String, Object> options = new LinkedHashMap<>();
+        options.put("parallelism", parallelism);
+        options.put("analyses", analyses);
+        return new IntraDataflowDriver(new AnalysisConfig(null, null,
+                IntraDataflowDriver.ID, List.of(),
+                new AnalysisOptions(options)));
+    }
+
+    /**
+     * Checks that the results of the driver with different parallelism
+     * are the same as the results of performing the analyses sequentially.
+     */
+    void testDriver(String inputClass) {
+        Main.main(new String[]{"-pp", "-cp", "src/test/resources/dataflow/deadcode/",
+                "-m", inputClass, "-a", CFGBuilder.ID});
+        for (int parallelism : new int[]{1, 2, 4}) {
+            Map<String, Map<JMethod, Object>> results =
+                    makeDriver(parallelism, analyses()).analyze();
+            analyses().forEach((id, options) -> {
+                MethodAnalysis analysis = IntraDataflowDriver.makeAnalysis(id, options);
+                Map<JMethod, Object> driverResults = results.get(id);
+                driverResults.forEach((method, driverResult) -> {
+                    IR ir = method.getIR();
+                    // the driver has stored the results of the earlier
+                    // analyses in the IR, on which the later analyses depend
+                    Object result = analysis.analyze(ir);
+                    Assert.assertEquals(id + " of " + method,
+                            toString(ir, result), toString(ir, driverResult));
+                });
+            });
+        }
+    }
+
+    private static String toString(IR ir, Object result) {
+        if (result instanceof NodeResult<?, ?>) {
+            @SuppressWarnings("unchecked")
+            NodeResult<Stmt, ?> nodeResult = (NodeResult<Stmt, ?>) result;
+            StringBuilder sb = new StringBuilder();
+            for (Stmt stmt : ir) {
+                sb.append(stmt).append(' ')
+                        .append(nodeResult.getInFact(stmt)).append(' ')
+                        .append(nodeResult.getOutFact(stmt)).append('\n');
+            }
+            return sb.toString();
+        }
+        return String.valueOf(result);
+    }
+
+    @Test
+    public void testDeadAssignment() {
+        testDriver("DeadAssignment");
+    }
+
+    @Test
+    public void testLoops() {
+        testDriver("Loops");
+    }
+
+    @Test
+    public void testUnreachableSwitchBranch() {
+        testDriver("UnreachableSwitchBranch");
+    }
+
+    @Test(expected = ConfigException.class)
+    public void testMissingRequiredAnalysis() {
+        Map<String, Map<String, Object>> analyses = new LinkedHashMap<>();
+        analyses.put(DeadCodeDetection.ID, Map.of());
+        analyses.put(ConstantPropagation.ID, Map.of());
+        analyses.put(LiveVariableAnalysis.ID, Map.of());
+        makeDriver(1, analyses);
+    }
+
+    @Test
+    public void testFusedDeadCodeRequiresNothing() {
+        Map<String, Map<String, Object>> analyses = new LinkedHashMap<>();
+        analyses.put(DeadCodeDetection.ID, Map.of("fused", true));
+        makeDriver(1, analyses);
+    }
+}
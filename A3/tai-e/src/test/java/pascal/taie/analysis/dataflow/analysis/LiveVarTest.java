@@ -32,6 +32,11 @@ public class LiveVarTest {
                 LiveVariableAnalysis.ID, "strongly:false");
     }
 
+    void testLVWithRPO(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/livevar",
+                LiveVariableAnalysis.ID, "strongly:false;worklist:rpo");
+    }
+
     @Test
     public void testAssign() {
         testLV("Assign");
@@ -61,4 +66,9 @@ public class LiveVarTest {
     public void Reference() {
         testLV("Reference");
     }
+
+    @Test
+    public void BranchLoopWithRPO() {
+        testLVWithRPO("BranchLoop");
+    }
 }
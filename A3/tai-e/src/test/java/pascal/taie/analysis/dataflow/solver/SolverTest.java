@@ -0,0 +1,234 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests incremental solving, by comparing its results with the results
+ * of solving the changed CFG from scratch.
+ */
+public class SolverTest {
+
+    private static final int N = 20;
+
+    private final List<Var> vars = new ArrayList<>();
+
+    private final Var x, y;
+
+    public SolverTest() {
+        for (int i = 0; i < 4; ++i) {
+            vars.add(new Var(null, "v" + i, PrimitiveType.INT, i));
+        }
+        x = vars.get(0);
+        y = vars.get(1);
+    }
+
+    /**
+     * @return statements "x = 1; y = x + x; x = y; y = x + x; ... return".
+     */
+    private List<Stmt> makeStmts() {
+        List<Stmt> stmts = new ArrayList<>();
+        stmts.add(new AssignLiteral(x, IntLiteral.get(1)));
+        for (int i = 0; i < N; ++i) {
+            stmts.add(i % 2 == 0 ?
+                    new Binary(y, new ArithmeticExp(ArithmeticExp.Op.ADD, x, x)) :
+                    new Copy(x, y));
+        }
+        stmts.add(new Return());
+        return stmts;
+    }
+
+    private static Map<String, Object> options(Object... kvs) {
+        Map<String, Object> options = new HashMap<>();
+        for (int i = 0; i < kvs.length; i += 2) {
+            options.put((String) kvs[i], kvs[i + 1]);
+        }
+        return options;
+    }
+
+    private CFG<Stmt> buildCFG(List<Stmt> stmts) {
+        for (int i = 0; i < stmts.size(); ++i) {
+            stmts.get(i).setIndex(i);
+        }
+        IR ir = new DefaultIR(null, null, List.of(), Set.of(),
+                vars, stmts, List.of());
+        CFGBuilder builder = new CFGBuilder(new AnalysisConfig(null, null,
+                CFGBuilder.ID, List.of(),
+                new AnalysisOptions(options("exception", "none", "dump", false))));
+        CFG<Stmt> cfg = builder.analyze(ir);
+        ir.storeResult(CFGBuilder.ID, cfg);
+        return cfg;
+    }
+
+    private static ConstantPropagation makeCP() {
+        return new ConstantPropagation(new AnalysisConfig(null, null,
+                ConstantPropagation.ID, List.of(),
+                new AnalysisOptions(options("edge-refine", false))));
+    }
+
+    private static LiveVariableAnalysis makeLiveVar() {
+        return new LiveVariableAnalysis(new AnalysisConfig(null, null,
+                LiveVariableAnalysis.ID, List.of(),
+                new AnalysisOptions(options("strongly", false))));
+    }
+
+    /**
+     * Solves the original CFG, applies given change, then re-solves
+     * the changed CFG incrementally and from scratch, and compares the results.
+     *
+     * @return the number of node transfers of incremental solving.
+     */
+    private <Fact> long testChange(
+            DataflowAnalysis<Stmt, Fact> analysis, Change change) {
+        List<Stmt> stmts = makeStmts();
+        Solver<Stmt, Fact> solver = Solver.makeSolver(analysis);
+        DataflowResult<Stmt, Fact> result = solver.solve(buildCFG(stmts));
+        List<Stmt> changed = change.apply(stmts);
+        CFG<Stmt> cfg = buildCFG(stmts);
+        long transfers = solver.getNodeTransferCount();
+        solver.solve(cfg, result, changed);
+        transfers = solver.getNodeTransferCount() - transfers;
+        DataflowResult<Stmt, Fact> expected = Solver.makeSolver(analysis).solve(cfg);
+        for (Stmt stmt : cfg) {
+            Assert.assertEquals("IN of " + stmt,
+                    expected.getInFact(stmt), result.getInFact(stmt));
+            Assert.assertEquals("OUT of " + stmt,
+                    expected.getOutFact(stmt), result.getOutFact(stmt));
+        }
+        return transfers;
+    }
+
+    @FunctionalInterface
+    private interface Change {
+
+        /**
+         * Changes given statements in place.
+         *
+         * @return the changed statements.
+         */
+        List<Stmt> apply(List<Stmt> stmts);
+    }
+
+    /**
+     * Replaces the first statement, so the statements keep their indexes.
+     */
+    private List<Stmt> replaceFirst(List<Stmt> stmts) {
+        Stmt stmt = new AssignLiteral(x, IntLiteral.get(2));
+        stmts.set(0, stmt);
+        return List.of(stmt);
+    }
+
+    /**
+     * Inserts a statement after the first one, so the following
+     * statements are re-indexed.
+     */
+    private List<Stmt> insertSecond(List<Stmt> stmts) {
+        Stmt stmt = new AssignLiteral(x, IntLiteral.get(3));
+        stmts.add(1, stmt);
+        return List.of(stmt);
+    }
+
+    /**
+     * Removes the second last statement, a definition which is not used,
+     * which changes the edges of its neighbors.
+     */
+    private List<Stmt> removeLast(List<Stmt> stmts) {
+        stmts.remove(stmts.size() - 2);
+        return List.of(stmts.get(stmts.size() - 2), stmts.get(stmts.size() - 1));
+    }
+
+    /**
+     * Removes the first statement "x = 1", so the second statement
+     * "y = x + x" is kept but its edges are changed. Its output becomes
+     * the initial fact, i.e., it no longer defines y as a constant.
+     */
+    private List<Stmt> removeFirst(List<Stmt> stmts) {
+        stmts.remove(0);
+        return List.of(stmts.get(0));
+    }
+
+    @Test
+    public void testReplaceForward() {
+        testChange(makeCP(), this::replaceFirst);
+    }
+
+    @Test
+    public void testReplaceBackward() {
+        testChange(makeLiveVar(), this::replaceFirst);
+    }
+
+    @Test
+    public void testInsertForward() {
+        testChange(makeCP(), this::insertSecond);
+    }
+
+    @Test
+    public void testInsertBackward() {
+        testChange(makeLiveVar(), this::insertSecond);
+    }
+
+    @Test
+    public void testRemoveForward() {
+        // besides the changed statements, only the new entry and exit of
+        // the rebuilt CFG and their neighbors are visited, while solving
+        // from scratch visits every node at least once
+        long transfers = testChange(makeCP(), this::removeLast);
+        Assert.assertTrue("transfers: " + transfers, transfers < N / 2);
+    }
+
+    @Test
+    public void testRemoveBackward() {
+        testChange(makeLiveVar(), this::removeLast);
+    }
+
+    @Test
+    public void testUndefineForward() {
+        testChange(makeCP(), this::removeFirst);
+    }
+}
@@ -37,6 +37,9 @@ import java.util.Map;
  * it represents that the lattice value of the variable is UNDEF;
  * moreover, if we set the lattice value of a variable to UNDEF,
  * it effectively removes the variable from the CPFact.
+ * <p>
+ * {@link #copy()} is cheap, as the copy shares the unchanged mappings
+ * with this fact (see {@link MapFact}).
  */
 public class CPFact extends MapFact<Var, Value> {
 
@@ -48,13 +51,18 @@ public class CPFact extends MapFact<Var, Value> {
         super(map);
     }
 
+    private CPFact(CPFact fact) {
+        super(fact);
+    }
+
     /**
      * @return the value of given variable in this fact,
      * or UNDEF the variable is absent in this fact.
      */
     @Override
     public Value get(Var key) {
-        return map.getOrDefault(key, Value.getUndef());
+        Value value = super.get(key);
+        return value != null ? value : Value.getUndef();
     }
 
     @Override
@@ -71,6 +79,6 @@ public class CPFact extends MapFact<Var, Value> {
 
     @Override
     public CPFact copy() {
-        return new CPFact(this.map);
+        return new CPFact(this);
     }
 }
@@ -87,11 +87,12 @@ public class ConstantPropagation extends AbstractDataflowAnalysis<Stmt, CPFact>
         if (stmt instanceof DefinitionStmt<?, ?> st) {
             if (st.getLValue() instanceof Var var && canHoldInt(var)) {
                 RValue exp = ((DefinitionStmt<?, ?>) stmt).getRValue();
-                CPFact out_backup = newInitialFact();
-                out_backup.copyFrom(out);
+                // copying a CPFact only copies its (small) delta,
+                // and the comparison only examines the changed keys
+                CPFact oldOut = out.copy();
                 out.copyFrom(in);
                 out.update(var, evaluate(exp, in));
-                return !out_backup.equals(out);
+                return !oldOut.equals(out);
             } else {
                 return out.copyFrom(in);
             }
@@ -23,8 +23,12 @@
 package pascal.taie.analysis.dataflow.fact;
 
 import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -34,6 +38,21 @@ import java.util.stream.Stream;
 
 /**
  * Represents map-like data-flow facts.
+ * <p>
+ * The mappings are stored copy-on-write: a fact consists of a base map,
+ * which can be shared by the copies of the fact, and a small delta map
+ * holding the mappings changed since the base was shared. Copying a fact
+ * only copies the delta, and when two facts share the same base,
+ * {@link #copyFrom(MapFact)} and {@link #equals(Object)} only examine
+ * the keys in their deltas. When the delta grows large (relative to the
+ * base), it is merged into a fresh base map.
+ * <p>
+ * A base map is never modified after it is created, and reading or copying
+ * a fact does not modify the fact, thus the facts (and their copies) can
+ * be read by multiple threads, e.g., the workers of a parallel solver.
+ * As usual, a fact must not be updated while it is being read.
+ * <p>
+ * Null values are not supported.
  *
  * @param <K> type of keys
  * @param <V> type of values
@@ -41,9 +60,28 @@ import java.util.stream.Stream;
 public class MapFact<K, V> {
 
     /**
-     * The map holding the mappings of this MapFact.
+     * Minimum number of mappings held by the delta before it is
+     * merged into a new base map.
      */
-    protected final Map<K, V> map;
+    private static final int DELTA_LIMIT = 8;
+
+    /**
+     * Marks the keys whose mappings in the base map are removed.
+     */
+    private static final Object REMOVED = new Object();
+
+    /**
+     * The base mappings of this fact. This map may be shared by other facts,
+     * thus it must not be modified.
+     */
+    private Map<K, V> base;
+
+    /**
+     * The mappings of this fact that differ from {@link #base}, where
+     * {@link #REMOVED} marks removed keys. This map is owned by this fact,
+     * and it is null if this fact does not differ from its base.
+     */
+    private Map<K, Object> delta;
 
     /**
      * Constructs a new MapFact with the same mappings as specified Map.
@@ -51,7 +89,22 @@ public class MapFact<K, V> {
      * @param map the map whose mappings are to be placed in this map.
      */
     public MapFact(Map<K, V> map) {
-        this.map = Maps.newHybridMap(map);
+        if (map.isEmpty()) {
+            this.base = Collections.emptyMap();
+        } else {
+            this.base = Maps.newHybridMap(map);
+        }
+    }
+
+    /**
+     * Constructs a new MapFact with the same mappings as given fact.
+     * The new fact shares the base map of given fact, which is not modified.
+     */
+    protected MapFact(MapFact<K, V> fact) {
+        this.base = fact.base;
+        if (fact.delta != null) {
+            this.delta = Maps.newHybridMap(fact.delta);
+        }
     }
 
     /**
@@ -59,7 +112,7 @@ public class MapFact<K, V> {
      * or null if this map contains no mapping for the key.
      */
     public V get(K key) {
-        return map.get(key);
+        return lookup(key);
     }
 
     /**
@@ -68,7 +121,11 @@ public class MapFact<K, V> {
      * @return if the update changes this fact.
      */
     public boolean update(K key, V value) {
-        return !Objects.equals(map.put(key, value), value);
+        if (Objects.equals(lookup(key), value)) {
+            return false;
+        }
+        put(key, value);
+        return true;
     }
 
     /**
@@ -78,7 +135,11 @@ public class MapFact<K, V> {
      * or null if there was no mapping for key.
      */
     public V remove(K key) {
-        return map.remove(key);
+        V oldValue = lookup(key);
+        if (oldValue != null) {
+            put(key, REMOVED);
+        }
+        return oldValue;
     }
 
     /**
@@ -88,8 +149,28 @@ public class MapFact<K, V> {
      */
     public boolean copyFrom(MapFact<K, V> fact) {
         boolean changed = false;
-        for (Map.Entry<K, V> entry : fact.map.entrySet()) {
-            changed |= update(entry.getKey(), entry.getValue());
+        if (fact.base == base) {
+            // the two facts can only differ in the keys of their deltas
+            if (delta != null) {
+                List<K> keys = new ArrayList<>(delta.keySet());
+                for (K key : keys) {
+                    V value = fact.lookup(key);
+                    if (value != null) {
+                        changed |= update(key, value);
+                    }
+                }
+            }
+            if (fact.delta != null) {
+                for (Map.Entry<K, Object> entry : fact.delta.entrySet()) {
+                    if (entry.getValue() != REMOVED) {
+                        changed |= update(entry.getKey(), fact.cast(entry.getValue()));
+                    }
+                }
+            }
+        } else {
+            boolean[] updated = { false };
+            fact.forEach((k, v) -> updated[0] |= update(k, v));
+            changed = updated[0];
         }
         return changed;
     }
@@ -98,28 +179,46 @@ public class MapFact<K, V> {
      * Creates and returns a copy of this fact.
      */
     public MapFact<K, V> copy() {
-        return new MapFact<>(this.map);
+        return new MapFact<>(this);
     }
 
     /**
      * Clears all content in this fact.
      */
     public void clear() {
-        map.clear();
+        base = Collections.emptyMap();
+        delta = null;
     }
 
     /**
-     * @return a {@link Set} view of the keys contained in this fact.
+     * @return an unmodifiable {@link Set} view of the keys contained
+     * in this fact.
      */
     public Set<K> keySet() {
-        return map.keySet();
+        if (delta == null) {
+            return Collections.unmodifiableSet(base.keySet());
+        }
+        Set<K> keys = Sets.newHybridSet();
+        forEach((k, v) -> keys.add(k));
+        return Collections.unmodifiableSet(keys);
     }
 
     /**
      * @return all entries (key-value mappings) in this fact.
      */
     public Stream<Map.Entry<K, V>> entries() {
-        return map.entrySet().stream();
+        if (delta == null) {
+            return base.entrySet().stream();
+        }
+        Map<K, Object> delta = this.delta;
+        return Stream.concat(
+                base.entrySet()
+                        .stream()
+                        .filter(e -> !delta.containsKey(e.getKey())),
+                delta.entrySet()
+                        .stream()
+                        .filter(e -> e.getValue() != REMOVED)
+                        .map(e -> Map.entry(e.getKey(), cast(e.getValue()))));
     }
 
     /**
@@ -129,7 +228,99 @@ public class MapFact<K, V> {
      * @param action the action to be performed for each entry.
      */
     public void forEach(BiConsumer<K, V> action) {
-        map.forEach(action);
+        if (delta == null) {
+            base.forEach(action);
+        } else {
+            Map<K, Object> delta = this.delta;
+            base.forEach((k, v) -> {
+                if (!delta.containsKey(k)) {
+                    action.accept(k, v);
+                }
+            });
+            delta.forEach((k, v) -> {
+                if (v != REMOVED) {
+                    action.accept(k, cast(v));
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the number of key-value mappings in this fact.
+     */
+    private int size() {
+        int size = base.size();
+        if (delta != null) {
+            // the delta never holds a mapping that equals the base one,
+            // so a removal always hides a base key, and a value either
+            // overrides a base key or adds a new one.
+            for (Map.Entry<K, Object> entry : delta.entrySet()) {
+                if (entry.getValue() == REMOVED) {
+                    --size;
+                } else if (!base.containsKey(entry.getKey())) {
+                    ++size;
+                }
+            }
+        }
+        return size;
+    }
+
+    private V lookup(K key) {
+        if (delta != null) {
+            Object value = delta.get(key);
+            if (value != null) {
+                return value == REMOVED ? null : cast(value);
+            }
+        }
+        return base.get(key);
+    }
+
+    /**
+     * Sets the mapping of given key to given value, or removes it
+     * if value is {@link #REMOVED}.
+     */
+    private void put(K key, Object value) {
+        V baseValue = base.get(key);
+        if (baseValue == null ? value == REMOVED : baseValue.equals(value)) {
+            // the mapping is restored to the base one
+            if (delta != null) {
+                delta.remove(key);
+                if (delta.isEmpty()) {
+                    delta = null;
+                }
+            }
+        } else {
+            if (delta == null) {
+                delta = Maps.newHybridMap();
+            }
+            delta.put(key, value);
+            // merging in proportion to the size of the base keeps
+            // the amortized cost of each update constant
+            if (delta.size() > Math.max(DELTA_LIMIT, base.size() >> 2)) {
+                flatten();
+            }
+        }
+    }
+
+    /**
+     * Merges the delta of this fact into a new base map.
+     */
+    private void flatten() {
+        Map<K, V> map = Maps.newHybridMap(base);
+        delta.forEach((k, v) -> {
+            if (v == REMOVED) {
+                map.remove(k);
+            } else {
+                map.put(k, cast(v));
+            }
+        });
+        base = map;
+        delta = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V cast(Object value) {
+        return (V) value;
     }
 
     @Override
@@ -140,13 +331,52 @@ public class MapFact<K, V> {
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
-        MapFact<?, ?> that = (MapFact<?, ?>) o;
-        return map.equals(that.map);
+        @SuppressWarnings("unchecked")
+        MapFact<K, V> that = (MapFact<K, V>) o;
+        if (base == that.base) {
+            return deltaEquals(this, that) && deltaEquals(that, this);
+        }
+        if (size() != that.size()) {
+            return false;
+        }
+        for (Map.Entry<K, V> entry : base.entrySet()) {
+            K key = entry.getKey();
+            if ((delta == null || !delta.containsKey(key))
+                    && !entry.getValue().equals(that.lookup(key))) {
+                return false;
+            }
+        }
+        if (delta != null) {
+            for (Map.Entry<K, Object> entry : delta.entrySet()) {
+                if (entry.getValue() != REMOVED
+                        && !entry.getValue().equals(that.lookup(entry.getKey()))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if fact2 agrees with fact1 on every key in fact1's delta.
+     */
+    private static <K, V> boolean deltaEquals(MapFact<K, V> fact1, MapFact<K, V> fact2) {
+        if (fact1.delta != null) {
+            for (K key : fact1.delta.keySet()) {
+                if (!Objects.equals(fact1.lookup(key), fact2.lookup(key))) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return map.hashCode();
+        // same as Map.hashCode(), i.e., the sum of the hash codes of entries
+        int[] hash = { 0 };
+        forEach((k, v) -> hash[0] += Objects.hashCode(k) ^ Objects.hashCode(v));
+        return hash[0];
     }
 
     @Override
@@ -154,8 +384,7 @@ public class MapFact<K, V> {
         // Sort key-value pairs by key's string representation, so that the
         // fact representation is stable across executions. This is useful
         // for comparing expected results and the ones given by the analysis.
-        return "{" + map.entrySet()
-                .stream()
+        return "{" + entries()
                 .sorted(Comparator.comparing(e -> e.getKey().toString()))
                 .map(e -> e.getKey() + "=" + e.getValue())
                 .collect(Collectors.joining(", ")) + "}";
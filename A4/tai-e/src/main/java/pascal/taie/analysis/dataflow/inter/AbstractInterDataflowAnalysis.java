@@ -25,14 +25,18 @@ package pascal.taie.analysis.dataflow.inter;
 import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
+import pascal.taie.analysis.graph.icfg.CompactICFG;
 import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGBuilder;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.LazyICFG;
 import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
 
 /**
  * Provides common functionalities for {@link InterDataflowAnalysis} implementations.
@@ -53,6 +57,28 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
         super(config);
     }
 
+    /**
+     * @return the ICFG to be analyzed, i.e., the result of {@link ICFGBuilder}
+     * if option "icfg" is "default", a {@link CompactICFG} built from
+     * the call graph if the option is "compact", or a {@link LazyICFG}
+     * which is built while solving if the option is "lazy".
+     */
+    @SuppressWarnings("unchecked")
+    protected ICFG<Method, Node> buildICFG() {
+        String kind = getOptions().getString("icfg");
+        if (kind == null || kind.equals("default")) {
+            return World.get().getResult(ICFGBuilder.ID);
+        } else if (kind.equals("compact")) {
+            return (ICFG<Method, Node>) (ICFG<?, ?>)
+                    new CompactICFG(World.get().getResult(CallGraphBuilder.ID));
+        } else if (kind.equals("lazy")) {
+            return (ICFG<Method, Node>) (ICFG<?, ?>)
+                    new LazyICFG(World.get().getResult(CallGraphBuilder.ID));
+        } else {
+            throw new ConfigException("Unknown ICFG: " + kind);
+        }
+    }
+
     /**
      * If the concrete analysis needs to perform some initialization before
      * the solver starts, then it can overwrite this method.
@@ -119,9 +145,18 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
 
     @Override
     public Object analyze() {
-        icfg = World.get().getResult(ICFGBuilder.ID);
+        return solve(buildICFG());
+    }
+
+    /**
+     * Solves this analysis on given ICFG, e.g., a view of the ICFG
+     * built by {@link #buildICFG()} without some edges.
+     */
+    DataflowResult<Node, Fact> solve(ICFG<Method, Node> icfg) {
+        this.icfg = icfg;
         initialize();
-        solver = new InterSolver<>(this, icfg);
+        solver = new InterSolver<>(this, icfg, getOptions().getString("schedule"),
+                getOptions().get("parallelism") instanceof Integer n ? n : 0);
         DataflowResult<Node, Fact> result = solver.solve();
         finish();
         return result;
@@ -0,0 +1,258 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Demand-driven interprocedural constant propagation, which computes
+ * the value of a variable at a program point without analyzing the whole
+ * ICFG. The value of a variable in IN fact of a statement only depends
+ * on the values of the variables at the predecessors of the statement,
+ * so a query walks the ICFG backward from the query point and collects
+ * the sub-queries it depends on, which are then solved to a fixed point
+ * (for loops and recursion) with the same transfer functions as
+ * {@link InterConstantPropagation}. Thus, the results agree with
+ * the facts computed by {@link InterConstantPropagation}.
+ * <p>
+ * The results of all sub-queries are cached, so later queries stop
+ * walking at the points which have been queried before.
+ */
+public class CPQueryEngine {
+
+    private final ICFG<JMethod, Stmt> icfg;
+
+    private final ConstantPropagation cp;
+
+    /**
+     * Entry nodes of the entry methods, whose parameters are NAC.
+     */
+    private final Set<Stmt> boundaries;
+
+    /**
+     * Cache of solved queries.
+     */
+    private final Map<Query, Value> cache = Maps.newMap();
+
+    public CPQueryEngine(ICFG<JMethod, Stmt> icfg) {
+        this.icfg = icfg;
+        this.cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+        this.boundaries = Sets.newSet();
+        icfg.entryMethods().map(icfg::getEntryOf).forEach(boundaries::add);
+    }
+
+    /**
+     * @return the value of given variable in IN fact of given statement,
+     * i.e., right before the statement is executed.
+     */
+    public Value query(Stmt stmt, Var var) {
+        if (!ConstantPropagation.canHoldInt(var)) {
+            // such variables are not tracked by constant propagation
+            return Value.getUndef();
+        }
+        Query root = new Query(stmt, var);
+        Value value = cache.get(root);
+        if (value == null) {
+            solve(root);
+            value = cache.get(root);
+        }
+        return value;
+    }
+
+    /**
+     * @return the number of cached queries.
+     */
+    public int getNumberOfCachedQueries() {
+        return cache.size();
+    }
+
+    /**
+     * Collects the (uncached) queries that given query depends on,
+     * and solves them together with given query.
+     */
+    private void solve(Query root) {
+        // values of the queries being solved, initially UNDEF
+        Map<Query, Value> values = Maps.newMap();
+        // the queries that depend on each query
+        Map<Query, List<Query>> dependents = Maps.newMap();
+        List<Query> queries = new ArrayList<>();
+        Deque<Query> stack = new ArrayDeque<>();
+        values.put(root, Value.getUndef());
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Query query = stack.pop();
+            queries.add(query);
+            compute(query, dep -> {
+                Value cached = cache.get(dep);
+                if (cached != null) {
+                    return cached;
+                }
+                dependents.computeIfAbsent(dep, q -> new ArrayList<>()).add(query);
+                if (values.putIfAbsent(dep, Value.getUndef()) == null) {
+                    stack.push(dep);
+                }
+                return Value.getUndef();
+            });
+        }
+        // the sub-queries were pushed after the queries depending on them,
+        // so solve them in reverse order of discovery first
+        Deque<Query> workList = new ArrayDeque<>(queries.size());
+        Set<Query> inWorkList = Sets.newSet(queries.size());
+        for (int i = queries.size() - 1; i >= 0; --i) {
+            workList.add(queries.get(i));
+            inWorkList.add(queries.get(i));
+        }
+        Function<Query, Value> lookup = dep -> {
+            Value cached = cache.get(dep);
+            return cached != null ? cached : values.get(dep);
+        };
+        while (!workList.isEmpty()) {
+            Query query = workList.poll();
+            inWorkList.remove(query);
+            Value value = compute(query, lookup);
+            if (!value.equals(values.put(query, value))) {
+                for (Query dependent : dependents.getOrDefault(query, List.of())) {
+                    if (inWorkList.add(dependent)) {
+                        workList.add(dependent);
+                    }
+                }
+            }
+        }
+        cache.putAll(values);
+    }
+
+    /**
+     * Computes the value of given query from the values of the queries
+     * it depends on, which are given by function values.
+     */
+    private Value compute(Query query, Function<Query, Value> values) {
+        Stmt stmt = query.stmt();
+        Var var = query.var();
+        Value value = boundaries.contains(stmt) &&
+                icfg.getContainingMethodOf(stmt).getIR().getParams().contains(var) ?
+                Value.getNAC() : Value.getUndef();
+        for (ICFGEdge<Stmt> edge : icfg.getInEdgesOf(stmt)) {
+            value = cp.meetValue(value, transferEdge(edge, var, values));
+        }
+        return value;
+    }
+
+    /**
+     * @return the value of given variable flowing along given edge,
+     * which corresponds to {@link InterConstantPropagation#transferEdge}.
+     */
+    private Value transferEdge(ICFGEdge<Stmt> edge, Var var,
+                               Function<Query, Value> values) {
+        Stmt source = edge.getSource();
+        if (edge instanceof CallToReturnEdge) {
+            // the value of LHS variable of the call site is killed
+            return var.equals(((Invoke) source).getResult()) ?
+                    Value.getUndef() : outValue(source, var, values);
+        } else if (edge instanceof CallEdge) {
+            // parameters are passed by the arguments
+            List<Var> params = icfg.getContainingMethodOf(edge.getTarget())
+                    .getIR().getParams();
+            int i = params.indexOf(var);
+            if (i < 0) {
+                return Value.getUndef();
+            }
+            Var arg = ((Invoke) source).getInvokeExp().getArg(i);
+            return outValue(source, arg, values);
+        } else if (edge instanceof ReturnEdge<Stmt> returnEdge) {
+            // LHS variable of the call site receives the return values
+            Value value = Value.getUndef();
+            if (var.equals(((Invoke) returnEdge.getCallSite()).getResult())) {
+                for (Var returnVar : returnEdge.getReturnVars()) {
+                    value = cp.meetValue(value, outValue(source, returnVar, values));
+                }
+            }
+            return value;
+        } else {
+            return outValue(source, var, values);
+        }
+    }
+
+    /**
+     * @return the value of given variable in OUT fact of given statement,
+     * which corresponds to {@link InterConstantPropagation#transferNode}.
+     */
+    private Value outValue(Stmt stmt, Var var, Function<Query, Value> values) {
+        if (!ConstantPropagation.canHoldInt(var)) {
+            return Value.getUndef();
+        }
+        if (!icfg.isCallSite(stmt) &&
+                stmt instanceof DefinitionStmt<?, ?> def &&
+                var.equals(def.getLValue())) {
+            // evaluate the definition with the values of the variables it uses
+            RValue exp = def.getRValue();
+            CPFact in = new CPFact();
+            List<Var> uses = new ArrayList<>();
+            if (exp instanceof Var v) {
+                uses.add(v);
+            } else {
+                exp.getUses().forEach(use -> {
+                    if (use instanceof Var v) {
+                        uses.add(v);
+                    }
+                });
+            }
+            for (Var use : uses) {
+                if (ConstantPropagation.canHoldInt(use)) {
+                    in.update(use, values.apply(new Query(stmt, use)));
+                }
+            }
+            return ConstantPropagation.evaluate(exp, in);
+        }
+        return values.apply(new Query(stmt, var));
+    }
+
+    /**
+     * Query of the value of a variable in IN fact of a statement.
+     */
+    private record Query(Stmt stmt, Var var) {
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Summary-based (functional) solver for interprocedural constant propagation.
+ * <p>
+ * Each method is analyzed once per distinct tuple of argument values
+ * (its context), which yields a summary, i.e., the value returned by
+ * the method in the context. Call sites apply the summaries of their
+ * callees instead of flowing facts into the callees' bodies, so the
+ * methods called from many sites are only re-analyzed for new contexts.
+ * <p>
+ * The summaries are computed by a work-list: a summary is re-analyzed
+ * only when the return value of a summary applied by its call sites
+ * changes. While the facts of a method are iterated to a fixed point,
+ * call sites only look up the existing summaries; the contexts of the
+ * callees are created from the fixed-point facts, and only for the call
+ * sites which are not affected by callees that are yet to be analyzed,
+ * so that transient facts do not use up the contexts.
+ * <p>
+ * The number of contexts of each method is bounded by
+ * {@link #MAX_CONTEXTS}; beyond the bound, the method is analyzed with
+ * all int arguments being NAC, which ensures termination for recursive
+ * methods called with ever-changing constants.
+ * <p>
+ * The fact of each statement in the result is the meet of its facts
+ * in all contexts of its method that are reachable from the entry methods.
+ */
+class CPSummarySolver {
+
+    /**
+     * Maximum number of contexts analyzed for each method.
+     */
+    private static final int MAX_CONTEXTS = 16;
+
+    private final ICFG<JMethod, Stmt> icfg;
+
+    private final ConstantPropagation cp;
+
+    /**
+     * Summaries of methods, keyed by the argument values.
+     */
+    private final Map<JMethod, Map<List<Value>, Summary>> summaries = Maps.newMap();
+
+    /**
+     * Summaries to be (re-)analyzed. It is used as a stack, so that
+     * the callees discovered by a summary are analyzed before the
+     * summaries which are waiting for them.
+     */
+    private final Deque<Summary> workList = new ArrayDeque<>();
+
+    CPSummarySolver(ICFG<JMethod, Stmt> icfg, ConstantPropagation cp) {
+        this.icfg = icfg;
+        this.cp = cp;
+    }
+
+    DataflowResult<Stmt, CPFact> solve() {
+        List<Summary> roots = new ArrayList<>();
+        icfg.entryMethods().forEach(method -> {
+            List<Value> args = method.getIR()
+                    .getParams()
+                    .stream()
+                    .map(p -> ConstantPropagation.canHoldInt(p)
+                            ? Value.getNAC() : Value.getUndef())
+                    .toList();
+            Summary root = getSummary(method, args);
+            root.root = true;
+            roots.add(root);
+            addToWorkList(root);
+        });
+        while (!workList.isEmpty()) {
+            Summary summary = workList.pop();
+            summary.inWorkList = false;
+            // summaries no longer applied by any call site are skipped,
+            // and re-analyzed if they are applied again
+            if (summary.isLive()) {
+                analyze(summary);
+            }
+        }
+        return merge(roots);
+    }
+
+    private void addToWorkList(Summary summary) {
+        if (!summary.inWorkList) {
+            summary.inWorkList = true;
+            workList.push(summary);
+        }
+    }
+
+    /**
+     * @return the existing summary of given method for given arguments,
+     * or null if the summary is absent.
+     */
+    @Nullable
+    private Summary lookupSummary(JMethod method, List<Value> args) {
+        Map<List<Value>, Summary> contexts = summaries.get(method);
+        if (contexts == null) {
+            return null;
+        }
+        Summary summary = contexts.get(args);
+        if (summary == null && contexts.size() >= MAX_CONTEXTS) {
+            summary = contexts.get(widen(args));
+        }
+        return summary;
+    }
+
+    /**
+     * @return the summary of given method for given arguments,
+     * which is created if it is absent.
+     */
+    private Summary getSummary(JMethod method, List<Value> args) {
+        Map<List<Value>, Summary> contexts = summaries.computeIfAbsent(
+                method, m -> new LinkedHashMap<>());
+        Summary summary = contexts.get(args);
+        if (summary == null) {
+            List<Value> key = contexts.size() >= MAX_CONTEXTS ? widen(args) : args;
+            summary = contexts.computeIfAbsent(key, a -> new Summary(method, a));
+        }
+        return summary;
+    }
+
+    private static List<Value> widen(List<Value> args) {
+        return args.stream()
+                .map(v -> v.isConstant() ? Value.getNAC() : v)
+                .toList();
+    }
+
+    /**
+     * Analyzes the method of given summary in its context.
+     */
+    private void analyze(Summary summary) {
+        IR ir = summary.method.getIR();
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        DataflowResult<Stmt, CPFact> result = new DataflowResult<>();
+        for (Stmt node : cfg) {
+            result.setInFact(node, cp.newInitialFact());
+            result.setOutFact(node, cp.newInitialFact());
+        }
+        CPFact entryOut = result.getOutFact(cfg.getEntry());
+        List<Var> params = ir.getParams();
+        for (int i = 0; i < params.size(); ++i) {
+            if (ConstantPropagation.canHoldInt(params.get(i))) {
+                entryOut.update(params.get(i), summary.args.get(i));
+            }
+        }
+        // values returned to the call sites by the existing summaries
+        Map<Stmt, Value> callValues = Maps.newMap();
+        Queue<Stmt> workList = new ArrayDeque<>(cfg.getNodes());
+        while (!workList.isEmpty()) {
+            Stmt node = workList.poll();
+            if (cfg.isEntry(node)) {
+                continue;
+            }
+            CPFact in = result.getInFact(node);
+            CPFact out = result.getOutFact(node);
+            for (Stmt pred : cfg.getPredsOf(node)) {
+                cp.meetInto(getEdgeFact(pred, result, callValues), in);
+            }
+            boolean outChanged;
+            if (icfg.isCallSite(node)) {
+                // like the call-to-return and return edges of the ICFG,
+                // the value of the call is flowed to the successors
+                // (see getEdgeFact()) instead of to the OUT fact
+                outChanged = out.copyFrom(in);
+                Value value = Value.getUndef();
+                for (Summary callee : lookupCallees((Invoke) node, in, false)) {
+                    if (callee != null) {
+                        value = cp.meetValue(value, callee.returnValue);
+                    }
+                }
+                outChanged |= !value.equals(callValues.put(node, value));
+            } else {
+                outChanged = cp.transferNode(node, in, out);
+            }
+            if (outChanged) {
+                workList.addAll(cfg.getSuccsOf(node));
+            }
+        }
+        bindCallees(summary, cfg, result, callValues);
+        Value returnValue = summary.returnValue;
+        for (Var var : ir.getReturnVars()) {
+            returnValue = cp.meetValue(returnValue,
+                    result.getInFact(cfg.getExit()).get(var));
+        }
+        boolean changed = summary.result == null
+                || !returnValue.equals(summary.returnValue);
+        summary.returnValue = returnValue;
+        summary.result = result;
+        if (changed) {
+            summary.callers.forEach(this::addToWorkList);
+        }
+    }
+
+    /**
+     * @return the fact flowing from given node to its successors.
+     */
+    private CPFact getEdgeFact(Stmt node, DataflowResult<Stmt, CPFact> result,
+                               Map<Stmt, Value> callValues) {
+        CPFact out = result.getOutFact(node);
+        if (node instanceof Invoke invoke && invoke.getResult() != null
+                && callValues.containsKey(node)) {
+            CPFact fact = out.copy();
+            fact.update(invoke.getResult(), callValues.get(node));
+            return fact;
+        }
+        return out;
+    }
+
+    /**
+     * @param create whether the absent summaries are created
+     * @return the summaries of the callees of given call site for
+     * the arguments given by {@code in}; if {@code create} is false,
+     * the absent summaries are null.
+     */
+    private List<Summary> lookupCallees(Invoke callSite, CPFact in, boolean create) {
+        List<Value> args = callSite.getInvokeExp()
+                .getArgs()
+                .stream()
+                .map(in::get)
+                .toList();
+        List<Summary> callees = new ArrayList<>();
+        for (JMethod callee : icfg.getCalleesOf(callSite)) {
+            callees.add(create ? getSummary(callee, args)
+                    : lookupSummary(callee, args));
+        }
+        return callees;
+    }
+
+    /**
+     * Binds the call sites of given summary to the summaries of their
+     * callees for the fixed-point facts, i.e., creates the contexts of
+     * the callees and registers given summary as their caller.
+     * <p>
+     * The values of a call site whose callees are yet to be analyzed
+     * are transient, and so are the facts after it. The call sites
+     * reachable from such a call site are not bound in this round;
+     * given summary is re-analyzed (and bound) once the callees are
+     * analyzed, as it is registered as their caller.
+     */
+    private void bindCallees(Summary summary, CFG<Stmt> cfg,
+                             DataflowResult<Stmt, CPFact> result,
+                             Map<Stmt, Value> callValues) {
+        List<Invoke> callSites = new ArrayList<>();
+        List<Stmt> pending = new ArrayList<>();
+        for (Stmt node : cfg) {
+            if (icfg.isCallSite(node)) {
+                Invoke callSite = (Invoke) node;
+                callSites.add(callSite);
+                if (callSite.getResult() != null && lookupCallees(
+                        callSite, result.getInFact(node), false)
+                        .stream()
+                        .anyMatch(c -> c == null || c.result == null)) {
+                    pending.add(node);
+                }
+            }
+        }
+        Set<Stmt> affected = Sets.newSet();
+        Deque<Stmt> stack = new ArrayDeque<>();
+        pending.forEach(node -> stack.addAll(cfg.getSuccsOf(node)));
+        while (!stack.isEmpty()) {
+            Stmt node = stack.pop();
+            if (affected.add(node)) {
+                stack.addAll(cfg.getSuccsOf(node));
+            }
+        }
+        if (!pending.isEmpty() && affected.containsAll(pending)) {
+            // every pending call site depends on another one (e.g., in
+            // a loop), thus they are bound with their current facts
+            affected.clear();
+        }
+        List<Summary> callees = new ArrayList<>();
+        boolean stale = false;
+        for (Invoke callSite : callSites) {
+            if (affected.contains(callSite)) {
+                continue;
+            }
+            Value value = Value.getUndef();
+            for (Summary callee : lookupCallees(
+                    callSite, result.getInFact(callSite), true)) {
+                boolean live = callee.isLive();
+                if (callee.callers.add(summary)
+                        && (callee.result == null || !live)) {
+                    addToWorkList(callee);
+                }
+                callees.add(callee);
+                value = cp.meetValue(value, callee.returnValue);
+            }
+            if (callSite.getResult() != null
+                    && !value.equals(callValues.get(callSite))) {
+                // the contexts created above may be widened
+                // differently from the facts
+                stale = true;
+            }
+        }
+        Set<Summary> current = Sets.newHybridSet(callees);
+        for (Summary callee : summary.callees) {
+            if (!current.contains(callee)) {
+                callee.callers.remove(summary);
+            }
+        }
+        summary.callees = callees;
+        if (stale) {
+            addToWorkList(summary);
+        }
+    }
+
+    /**
+     * @return the result which merges the facts of the summaries
+     * reachable from given root summaries.
+     */
+    private DataflowResult<Stmt, CPFact> merge(List<Summary> roots) {
+        DataflowResult<Stmt, CPFact> result = new DataflowResult<>();
+        for (Stmt node : icfg) {
+            result.setInFact(node, cp.newInitialFact());
+            result.setOutFact(node, cp.newInitialFact());
+        }
+        Map<Summary, Boolean> visited = Maps.newMap();
+        Queue<Summary> queue = new ArrayDeque<>();
+        roots.forEach(root -> {
+            if (visited.put(root, true) == null) {
+                queue.add(root);
+            }
+        });
+        while (!queue.isEmpty()) {
+            Summary summary = queue.poll();
+            for (Stmt node : summary.method.getIR()
+                    .<CFG<Stmt>>getResult(CFGBuilder.ID)) {
+                if (result.getInFact(node) != null) {
+                    cp.meetInto(summary.result.getInFact(node), result.getInFact(node));
+                    cp.meetInto(summary.result.getOutFact(node), result.getOutFact(node));
+                }
+            }
+            summary.callees.forEach(callee -> {
+                if (visited.put(callee, true) == null) {
+                    queue.add(callee);
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Summary of a method in a context.
+     */
+    private static class Summary {
+
+        private final JMethod method;
+
+        private final List<Value> args;
+
+        /**
+         * The meet of values returned by the method.
+         */
+        private Value returnValue = Value.getUndef();
+
+        /**
+         * Facts of the method in this context, or null if the method
+         * has not been analyzed in this context.
+         */
+        private DataflowResult<Stmt, CPFact> result;
+
+        /**
+         * Summaries bound to the call sites of the method.
+         */
+        private List<Summary> callees = Collections.emptyList();
+
+        /**
+         * Summaries whose call sites are bound to this summary.
+         */
+        private final Set<Summary> callers = Sets.newHybridOrderedSet();
+
+        /**
+         * Whether this summary is of an entry method.
+         */
+        private boolean root = false;
+
+        private boolean inWorkList = false;
+
+        private Summary(JMethod method, List<Value> args) {
+            this.method = method;
+            this.args = args;
+        }
+
+        private boolean isLive() {
+            return root || !callers.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.ProgramAnalysis;
+import pascal.taie.analysis.exception.ThrowAnalysis;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.icfg.ICFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.ExceptionEntry;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dead code elimination based on the results of {@link InterDeadCodeDetection}.
+ * <p>
+ * For each live method which has dead code or constant branches, this
+ * analysis builds a pruned IR, where the dead statements are removed,
+ * and each constant branch is replaced by a goto to its feasible target
+ * (or removed if the target is the next statement). The pruned IR
+ * replaces the IR of the method (see {@link JMethod#setIR(IR)}), together
+ * with its rebuilt CFG. Then the call graph (and the ICFG, if it has been
+ * built) is rebuilt without the dead methods and the dead call sites, and
+ * replaces the previous one in {@link World}. Thus, the analyses which
+ * run after this analysis, e.g., pointer analysis and interprocedural
+ * constant propagation, process only the live code.
+ * <p>
+ * The pruned IR takes over the live statements of the original IR
+ * (the indexes of the statements and the targets of the jumps are
+ * updated), hence the original IR should not be used afterwards, and
+ * the results computed on it can only be queried by statements.
+ * The methods whose exception entries cannot be mapped to the pruned
+ * IR are left unchanged.
+ */
+public class DeadCodeElimination extends ProgramAnalysis {
+
+    public static final String ID = "dce";
+
+    private static final Logger logger = LogManager.getLogger(DeadCodeElimination.class);
+
+    private final ThrowAnalysis throwAnalysis;
+
+    private final CFGBuilder cfgBuilder;
+
+    public DeadCodeElimination(AnalysisConfig config) {
+        super(config);
+        throwAnalysis = new ThrowAnalysis(new AnalysisConfig(ThrowAnalysis.ID,
+                "exception", "explicit", "algorithm", "intra"));
+        cfgBuilder = new CFGBuilder(new AnalysisConfig(CFGBuilder.ID,
+                "exception", "explicit", "dump", false));
+    }
+
+    /**
+     * @return the methods whose IRs are pruned.
+     */
+    @Override
+    public Set<JMethod> analyze() {
+        InterDeadCodeResult deadCode = World.get().getResult(InterDeadCodeDetection.ID);
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        Set<JMethod> liveMethods = Sets.newSet();
+        callGraph.reachableMethods()
+                .filter(m -> !deadCode.getDeadMethods().contains(m))
+                .forEach(liveMethods::add);
+        Set<JMethod> pruned = Sets.newSet();
+        int removed = 0;
+        for (JMethod method : liveMethods) {
+            if (method.isAbstract() || method.isNative()) {
+                continue;
+            }
+            IR ir = method.getIR();
+            Set<Stmt> dead = deadCode.getDeadCode(method);
+            if (dead.isEmpty() && ir.stmts().noneMatch(
+                    stmt -> deadCode.getFeasibleTarget(stmt) != null)) {
+                continue;
+            }
+            IR newIR = prune(ir, dead, deadCode);
+            if (newIR != null) {
+                // dead is compared by identity (see InterDeadCodeDetection),
+                // thus it is still valid after the live statements
+                // have been re-indexed by prune()
+                ir.getVars().forEach(var -> var.removeRelevantStmts(dead));
+                newIR.storeResult(ThrowAnalysis.ID, throwAnalysis.analyze(newIR));
+                newIR.storeResult(CFGBuilder.ID, cfgBuilder.analyze(newIR));
+                method.setIR(newIR);
+                pruned.add(method);
+                removed += ir.getStmts().size() - newIR.getStmts().size();
+            }
+        }
+        World.get().storeResult(CallGraphBuilder.ID,
+                rebuildCallGraph(callGraph, liveMethods));
+        if (World.get().getResult(ICFGBuilder.ID) != null) {
+            World.get().storeResult(ICFGBuilder.ID, new ICFGBuilder(
+                    new AnalysisConfig(ICFGBuilder.ID, "dump", false)).analyze());
+        }
+        logger.info("Pruned {} methods ({} statements removed), {} dead methods",
+                pruned.size(), removed, deadCode.getDeadMethods().size());
+        return pruned;
+    }
+
+    /**
+     * @return the IR which contains the live statements of given IR,
+     * or null if the exception entries cannot be mapped to the live
+     * statements.
+     */
+    @Nullable
+    private static IR prune(IR ir, Set<Stmt> dead, InterDeadCodeResult deadCode) {
+        List<Stmt> live = ir.stmts()
+                .filter(stmt -> !dead.contains(stmt))
+                .toList();
+        // map from each removed or replaced statement to the statement
+        // which takes its place in the pruned IR
+        Map<Stmt, Stmt> replacements = Maps.newMap();
+        List<Stmt> stmts = new ArrayList<>(live.size());
+        for (int i = 0; i < live.size(); ++i) {
+            Stmt stmt = live.get(i);
+            Stmt target = deadCode.getFeasibleTarget(stmt);
+            if (target == null) {
+                stmts.add(stmt);
+            } else if (i + 1 < live.size() && live.get(i + 1) == target) {
+                // falls through to the target
+                replacements.put(stmt, target);
+            } else {
+                Goto jump = new Goto();
+                jump.setTarget(target);
+                jump.setLineNumber(stmt.getLineNumber());
+                replacements.put(stmt, jump);
+                stmts.add(jump);
+            }
+        }
+        // map the exception entries before the statements are re-indexed
+        List<ExceptionEntry> entries = new ArrayList<>();
+        for (ExceptionEntry entry : ir.getExceptionEntries()) {
+            if (dead.contains(entry.handler())) {
+                // no live statement throws exceptions to the handler
+                continue;
+            }
+            Stmt start = firstLiveFrom(ir, entry.start(), dead, replacements);
+            Stmt end = firstLiveFrom(ir, entry.end(), dead, replacements);
+            if (end == null) {
+                return null;
+            }
+            if (start != end) {
+                entries.add(new ExceptionEntry(start, end,
+                        entry.handler(), entry.catchType()));
+            }
+        }
+        // redirect the jumps to the replacements of their targets
+        for (Stmt stmt : stmts) {
+            if (stmt instanceof If ifStmt) {
+                ifStmt.setTarget(resolve(ifStmt.getTarget(), replacements));
+            } else if (stmt instanceof Goto jump) {
+                jump.setTarget(resolve(jump.getTarget(), replacements));
+            } else if (stmt instanceof SwitchStmt switchStmt) {
+                switchStmt.setTargets(switchStmt.getTargets()
+                        .stream()
+                        .map(target -> resolve(target, replacements))
+                        .toList());
+                switchStmt.setDefaultTarget(
+                        resolve(switchStmt.getDefaultTarget(), replacements));
+            }
+        }
+        Set<Var> returnVars = Sets.newHybridOrderedSet();
+        for (int i = 0; i < stmts.size(); ++i) {
+            Stmt stmt = stmts.get(i);
+            stmt.setIndex(i);
+            if (stmt instanceof Return ret && ret.getValue() != null) {
+                returnVars.add(ret.getValue());
+            }
+        }
+        return new DefaultIR(ir.getMethod(), ir.getThis(), ir.getParams(),
+                returnVars, ir.getVars(), stmts, entries);
+    }
+
+    /**
+     * @return the statement which takes the place of given statement
+     * in the pruned IR.
+     */
+    private static Stmt resolve(Stmt stmt, Map<Stmt, Stmt> replacements) {
+        Stmt replacement;
+        while ((replacement = replacements.get(stmt)) != null) {
+            stmt = replacement;
+        }
+        return stmt;
+    }
+
+    /**
+     * @return the first statement of the pruned IR which comes from
+     * given statement or the statements after it, or null if there is
+     * no such statement.
+     */
+    @Nullable
+    private static Stmt firstLiveFrom(IR ir, Stmt stmt, Set<Stmt> dead,
+                                      Map<Stmt, Stmt> replacements) {
+        for (int i = stmt.getIndex(); i < ir.getStmts().size(); ++i) {
+            Stmt s = ir.getStmt(i);
+            if (!dead.contains(s)) {
+                return resolve(s, replacements);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the call graph which only contains the live methods
+     * and the call edges of their (live) call sites.
+     */
+    private static CallGraph<Invoke, JMethod> rebuildCallGraph(
+            CallGraph<Invoke, JMethod> callGraph, Set<JMethod> liveMethods) {
+        DefaultCallGraph newCallGraph = new DefaultCallGraph();
+        callGraph.entryMethods().forEach(newCallGraph::addEntryMethod);
+        liveMethods.forEach(newCallGraph::addReachableMethod);
+        liveMethods.forEach(method -> newCallGraph.callSitesIn(method)
+                .forEach(callSite -> callGraph.edgesOutOf(callSite)
+                        .filter(edge -> liveMethods.contains(edge.getCallee()))
+                        .forEach(newCallGraph::addEdge)));
+        return newCallGraph;
+    }
+}
@@ -22,17 +22,21 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
-import jas.CP;
+import pascal.taie.World;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
+import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.LValue;
@@ -41,6 +45,7 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -55,9 +60,72 @@ public class InterConstantPropagation extends
 
     private final ConstantPropagation cp;
 
+    /**
+     * Whether the analysis is solved by {@link CPSummarySolver},
+     * i.e., by applying per-context method summaries at call sites.
+     */
+    private final boolean summary;
+
+    /**
+     * Whether the facts are pruned by the results of
+     * {@link InterLiveVariableAnalysis}.
+     */
+    private final boolean prune;
+
+    /**
+     * Live variables before each ICFG node, or null if the facts are not pruned.
+     */
+    @Nullable
+    private DataflowResult<Stmt, SetFact<Var>> liveVars;
+
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
         cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+        summary = getOptions().getBooleanOrDefault("summary", false);
+        prune = getOptions().getBooleanOrDefault("prune", false);
+    }
+
+    @Override
+    protected void initialize() {
+        liveVars = prune ? World.get().getResult(InterLiveVariableAnalysis.ID) : null;
+    }
+
+    @Override
+    protected void finish() {
+        liveVars = null;
+    }
+
+    /**
+     * @return true if given variable may be live before given node.
+     * Without liveness results, all variables are considered live.
+     */
+    private boolean isLive(Var var, Stmt node) {
+        if (liveVars == null) {
+            return true;
+        }
+        SetFact<Var> live = liveVars.getInFact(node);
+        return live == null || live.contains(var);
+    }
+
+    @Override
+    public Object analyze() {
+        if (summary && "lazy".equals(getOptions().getString("icfg"))) {
+            throw new ConfigException("Option summary does not support lazy ICFG");
+        }
+        return super.analyze();
+    }
+
+    @Override
+    DataflowResult<Stmt, CPFact> solve(ICFG<JMethod, Stmt> icfg) {
+        if (summary) {
+            this.icfg = icfg;
+            initialize();
+            DataflowResult<Stmt, CPFact> result = new CPSummarySolver(icfg, cp).solve();
+            finish();
+            return result;
+        } else {
+            return super.solve(icfg);
+        }
     }
 
     @Override
@@ -103,6 +171,18 @@ public class InterConstantPropagation extends
     protected CPFact transferCallToReturnEdge(CallToReturnEdge<Stmt> edge, CPFact out) {
         // TODO - finish me
         if (edge.getSource() instanceof Invoke invoke) {
+            if (liveVars != null) {
+                // only carries the variables live after the call site,
+                // as the others are never used before being redefined
+                CPFact fact = new CPFact();
+                Stmt returnSite = edge.getTarget();
+                out.forEach((var, value) -> {
+                    if (!var.equals(invoke.getResult()) && isLive(var, returnSite)) {
+                        fact.update(var, value);
+                    }
+                });
+                return fact;
+            }
             if (invoke.getResult() != null) {
                 CPFact fact = out.copy();
                 fact.remove(invoke.getResult());
@@ -124,7 +204,9 @@ public class InterConstantPropagation extends
         assert params.size() == args.size();
 
         for (int i = 0; i < params.size(); ++i) {
-            fact.update(params.get(i), callSiteOut.get(args.get(i)));
+            if (isLive(params.get(i), edge.getTarget())) {
+                fact.update(params.get(i), callSiteOut.get(args.get(i)));
+            }
         }
 
         return fact;
@@ -134,6 +216,10 @@ public class InterConstantPropagation extends
     protected CPFact transferReturnEdge(ReturnEdge<Stmt> edge, CPFact returnOut) {
         // TODO - finish me
         CPFact fact = new CPFact();
+        if (edge.getCallSite() instanceof Invoke invoke && invoke.getResult() != null
+                && !isLive(invoke.getResult(), edge.getTarget())) {
+            return fact;
+        }
         Value val = Value.getUndef();
 
         for (Var var : edge.getReturnVars()) {
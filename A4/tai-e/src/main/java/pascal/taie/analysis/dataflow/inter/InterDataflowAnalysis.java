@@ -67,7 +67,9 @@ public interface InterDataflowAnalysis<Node, Fact> {
      * Edge Transfer function for this analysis.
      *
      * @param edge the ICFG edge that the transfer function is applied on.
-     * @param out  the OUT fact of source node of the edge.
+     * @param out  the OUT fact of source node of the edge for forward
+     *             analysis, or the IN fact of target node of the edge
+     *             for backward analysis.
      * @return the result of edge transfer function.
      */
     Fact transferEdge(ICFGEdge<Node> edge, Fact out);
@@ -0,0 +1,395 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.ProgramAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.CompactICFG;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.Options;
+import pascal.taie.config.PlanConfig;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.Views;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Whole-program dead code detection based on the results of
+ * {@link InterConstantPropagation} and the call graph.
+ * <p>
+ * The IN facts of interprocedural constant propagation meet the values
+ * passed by all callers, thus a branch whose condition is constant in
+ * these facts is decided the same way in all calling contexts, and its
+ * other targets are dead. The call sites in dead code do not call any
+ * methods, so a method is live only if it is an entry method, or it is
+ * called by a live call site of a live method, and the methods which are
+ * reachable in the call graph but not live are dead. Liveness of the
+ * methods is computed to a fixed point with a work list of methods: each
+ * live method is traversed (following only the feasible targets of its
+ * branches) once, which makes the callees of its reachable call sites
+ * live, and so on. Thus, the callees that are only called by dead code
+ * (or by dead methods) are found dead transitively.
+ * <p>
+ * The facts of constant propagation are still polluted by the values
+ * passed by the dead call sites, e.g., a method called with 1 by a live
+ * call site and with 2 by a dead one receives a non-constant parameter.
+ * Hence, constant propagation is solved again (with the options given to
+ * it in the plan) without the call and return edges of the dead call sites, which may decide more branches and find
+ * more dead code, until no more call sites are found dead.
+ */
+public class InterDeadCodeDetection extends ProgramAnalysis {
+
+    public static final String ID = "inter-deadcode";
+
+    private static final Logger logger = LogManager.getLogger(InterDeadCodeDetection.class);
+
+    public InterDeadCodeDetection(AnalysisConfig config) {
+        super(config);
+    }
+
+    @Override
+    public InterDeadCodeResult analyze() {
+        CallGraph<Invoke, JMethod> callGraph =
+                World.get().getResult(CallGraphBuilder.ID);
+        DataflowResult<Stmt, CPFact> constants =
+                World.get().getResult(InterConstantPropagation.ID);
+        Set<Stmt> deadCallSites = Sets.newSet();
+        InterConstantPropagation constprop = null;
+        ICFG<JMethod, Stmt> icfg = null;
+        for (int round = 1; ; ++round) {
+            InterDeadCodeResult result = detect(callGraph, constants);
+            if (!addDeadCallSites(callGraph, result, deadCallSites)) {
+                logger.debug("Dead code is stable after {} round(s), {} dead call sites",
+                        round, deadCallSites.size());
+                return result;
+            }
+            if (constprop == null) {
+                constprop = new InterConstantPropagation(getConstPropConfig());
+                // a lazy ICFG is built while it is being solved, and cannot
+                // be viewed without some edges, thus the compact ICFG, which
+                // has the same nodes and edges, is used instead
+                icfg = "lazy".equals(constprop.getOptions().getString("icfg"))
+                        ? new CompactICFG(World.get().getResult(CallGraphBuilder.ID))
+                        : constprop.buildICFG();
+            }
+            constants = constprop.solve(new LiveICFG(icfg, deadCallSites));
+        }
+    }
+
+    /**
+     * @return the configuration of {@link InterConstantPropagation} with
+     * the options given in the plan, so that the constants are solved
+     * again by the same solver (with the same precision) as the ones
+     * used in the first round.
+     */
+    private static AnalysisConfig getConstPropConfig() {
+        Options options = World.get().getOptions();
+        List<PlanConfig> plan = options.getPlanFile() != null ?
+                PlanConfig.readConfigs(options.getPlanFile()) :
+                PlanConfig.readConfigs(options);
+        AnalysisOptions cpOptions = plan.stream()
+                .filter(config -> config.getId().equals(InterConstantPropagation.ID))
+                .map(PlanConfig::getOptions)
+                .findFirst()
+                .orElseGet(() -> new AnalysisOptions(Map.of()));
+        return new AnalysisConfig(InterConstantPropagation.ID, null,
+                InterConstantPropagation.class.getName(), List.of(), cpOptions);
+    }
+
+    /**
+     * Detects dead methods and dead code with given constants.
+     */
+    private static InterDeadCodeResult detect(CallGraph<Invoke, JMethod> callGraph,
+                                              DataflowResult<Stmt, CPFact> constants) {
+        Set<JMethod> liveMethods = Sets.newSet();
+        Map<JMethod, Set<Stmt>> deadCode = Maps.newMap();
+        Map<Stmt, Stmt> constantBranches = Maps.newMap();
+        Deque<JMethod> workList = new ArrayDeque<>();
+        callGraph.entryMethods().forEach(method -> {
+            if (liveMethods.add(method)) {
+                workList.add(method);
+            }
+        });
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (method.isAbstract() || method.isNative()) {
+                continue;
+            }
+            CFG<Stmt> cfg = method.getIR().getResult(CFGBuilder.ID);
+            Set<Stmt> reachable = traverse(cfg, constants, constantBranches);
+            // ordered by the indexes (at the time of detection), but compared
+            // by identity, as the statements may be re-indexed by dce
+            Set<Stmt> dead = Sets.newHybridOrderedSet();
+            for (Stmt stmt : cfg.getIR()) {
+                if (!reachable.contains(stmt)) {
+                    dead.add(stmt);
+                } else if (stmt instanceof Invoke callSite) {
+                    for (JMethod callee : callGraph.getCalleesOf(callSite)) {
+                        if (liveMethods.add(callee)) {
+                            workList.add(callee);
+                        }
+                    }
+                }
+            }
+            if (!dead.isEmpty()) {
+                deadCode.put(method, Collections.unmodifiableSet(dead));
+            }
+        }
+        Set<JMethod> deadMethods = callGraph.reachableMethods()
+                .filter(method -> !liveMethods.contains(method))
+                .collect(Collectors.toCollection(Sets::newSet));
+        return new InterDeadCodeResult(deadMethods, deadCode, constantBranches);
+    }
+
+    /**
+     * Adds the call sites in the dead code of given result to deadCallSites.
+     *
+     * @return true if any call site is added.
+     */
+    private static boolean addDeadCallSites(CallGraph<Invoke, JMethod> callGraph,
+                                            InterDeadCodeResult result,
+                                            Set<Stmt> deadCallSites) {
+        boolean changed = false;
+        for (JMethod method : callGraph.reachableMethods().toList()) {
+            if (method.isAbstract() || method.isNative()) {
+                continue;
+            }
+            for (Stmt stmt : result.getDeadCode(method)) {
+                if (stmt instanceof Invoke) {
+                    changed |= deadCallSites.add(stmt);
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Traverses given CFG from its entry, following only the feasible
+     * targets of the branches, and adds the branches which have only
+     * one feasible target (and the targets) to {@code constantBranches}.
+     *
+     * @return the reachable nodes of the CFG.
+     */
+    private static Set<Stmt> traverse(CFG<Stmt> cfg,
+                                      DataflowResult<Stmt, CPFact> constants,
+                                      Map<Stmt, Stmt> constantBranches) {
+        Set<Stmt> reachable = Sets.newSet(cfg.getNumberOfNodes());
+        Deque<Stmt> stack = new ArrayDeque<>();
+        reachable.add(cfg.getEntry());
+        stack.push(cfg.getEntry());
+        while (!stack.isEmpty()) {
+            Stmt stmt = stack.pop();
+            Stmt target = feasibleTargetOf(cfg, stmt, constants.getInFact(stmt));
+            if (target != null) {
+                constantBranches.put(stmt, target);
+                if (reachable.add(target)) {
+                    stack.push(target);
+                }
+            } else {
+                for (Stmt succ : cfg.getSuccsOf(stmt)) {
+                    if (reachable.add(succ)) {
+                        stack.push(succ);
+                    }
+                }
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * @return the only feasible target of given statement if it is
+     * a branch whose condition is constant in given fact, otherwise null.
+     */
+    @Nullable
+    private static Stmt feasibleTargetOf(CFG<Stmt> cfg, Stmt stmt,
+                                         @Nullable CPFact in) {
+        if (in == null) {
+            // the statement is not analyzed, e.g., by on-demand solving
+            return null;
+        }
+        if (stmt instanceof If ifStmt) {
+            Value cond = ConstantPropagation.evaluate(ifStmt.getCondition(), in);
+            if (cond.isConstant()) {
+                Edge.Kind kind = cond.getConstant() != 0 ?
+                        Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE;
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                    if (edge.getKind() == kind) {
+                        return edge.getTarget();
+                    }
+                }
+            }
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            Value value = ConstantPropagation.evaluate(switchStmt.getVar(), in);
+            if (value.isConstant()) {
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                    if (edge.getKind() == Edge.Kind.SWITCH_CASE &&
+                            edge.getCaseValue() == value.getConstant()) {
+                        return edge.getTarget();
+                    }
+                }
+                return switchStmt.getDefaultTarget();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * View of an ICFG without the call and return edges of given call sites.
+     */
+    private static class LiveICFG implements ICFG<JMethod, Stmt> {
+
+        private final ICFG<JMethod, Stmt> icfg;
+
+        private final Set<Stmt> deadCallSites;
+
+        private LiveICFG(ICFG<JMethod, Stmt> icfg, Set<Stmt> deadCallSites) {
+            this.icfg = icfg;
+            this.deadCallSites = deadCallSites;
+        }
+
+        private boolean isLive(ICFGEdge<Stmt> edge) {
+            if (edge instanceof CallEdge<Stmt> callEdge) {
+                return !deadCallSites.contains(callEdge.getSource());
+            } else if (edge instanceof ReturnEdge<Stmt> returnEdge) {
+                return !deadCallSites.contains(returnEdge.getCallSite());
+            } else {
+                return true;
+            }
+        }
+
+        private Set<ICFGEdge<Stmt>> liveEdges(Set<ICFGEdge<Stmt>> edges) {
+            return edges.stream()
+                    .filter(this::isLive)
+                    .collect(Collectors.toCollection(Sets::newHybridSet));
+        }
+
+        @Override
+        public Stream<JMethod> entryMethods() {
+            return icfg.entryMethods();
+        }
+
+        @Override
+        public Set<ICFGEdge<Stmt>> getInEdgesOf(Stmt stmt) {
+            return liveEdges(icfg.getInEdgesOf(stmt));
+        }
+
+        @Override
+        public Set<ICFGEdge<Stmt>> getOutEdgesOf(Stmt stmt) {
+            return liveEdges(icfg.getOutEdgesOf(stmt));
+        }
+
+        @Override
+        public Set<JMethod> getCalleesOf(Stmt callSite) {
+            return deadCallSites.contains(callSite) ?
+                    Set.of() : icfg.getCalleesOf(callSite);
+        }
+
+        @Override
+        public Set<Stmt> getReturnSitesOf(Stmt callSite) {
+            return icfg.getReturnSitesOf(callSite);
+        }
+
+        @Override
+        public Stmt getEntryOf(JMethod method) {
+            return icfg.getEntryOf(method);
+        }
+
+        @Override
+        public Stmt getExitOf(JMethod method) {
+            return icfg.getExitOf(method);
+        }
+
+        @Override
+        public Set<Stmt> getCallersOf(JMethod method) {
+            return icfg.getCallersOf(method)
+                    .stream()
+                    .filter(callSite -> !deadCallSites.contains(callSite))
+                    .collect(Collectors.toCollection(Sets::newHybridSet));
+        }
+
+        @Override
+        public JMethod getContainingMethodOf(Stmt stmt) {
+            return icfg.getContainingMethodOf(stmt);
+        }
+
+        @Override
+        public boolean isCallSite(Stmt stmt) {
+            return icfg.isCallSite(stmt);
+        }
+
+        @Override
+        public boolean hasNode(Stmt stmt) {
+            return icfg.hasNode(stmt);
+        }
+
+        @Override
+        public boolean hasEdge(Stmt source, Stmt target) {
+            return getSuccsOf(source).contains(target);
+        }
+
+        @Override
+        public Set<Stmt> getPredsOf(Stmt stmt) {
+            return Views.toMappedSet(getInEdgesOf(stmt), ICFGEdge::getSource);
+        }
+
+        @Override
+        public Set<Stmt> getSuccsOf(Stmt stmt) {
+            return Views.toMappedSet(getOutEdgesOf(stmt), ICFGEdge::getTarget);
+        }
+
+        @Override
+        public Set<Stmt> getNodes() {
+            return icfg.getNodes();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Results of {@link InterDeadCodeDetection}.
+ */
+public class InterDeadCodeResult {
+
+    private final Set<JMethod> deadMethods;
+
+    private final Map<JMethod, Set<Stmt>> deadCode;
+
+    /**
+     * Map from each constant branch to its only feasible target.
+     */
+    private final Map<Stmt, Stmt> constantBranches;
+
+    InterDeadCodeResult(Set<JMethod> deadMethods,
+                        Map<JMethod, Set<Stmt>> deadCode,
+                        Map<Stmt, Stmt> constantBranches) {
+        this.deadMethods = Collections.unmodifiableSet(deadMethods);
+        this.deadCode = deadCode;
+        this.constantBranches = constantBranches;
+    }
+
+    /**
+     * @return the methods which are reachable in the call graph,
+     * but only called by dead code.
+     */
+    public Set<JMethod> getDeadMethods() {
+        return deadMethods;
+    }
+
+    /**
+     * @return the dead statements of given method, in the order of
+     * their indexes. All statements of dead methods are dead.
+     */
+    public Set<Stmt> getDeadCode(JMethod method) {
+        if (deadMethods.contains(method)) {
+            return Collections.unmodifiableSet(
+                    new LinkedHashSet<>(method.getIR().getStmts()));
+        }
+        return deadCode.getOrDefault(method, Set.of());
+    }
+
+    /**
+     * @return the live if and switch statements whose conditions are
+     * constant, i.e., only one of their targets is reachable.
+     */
+    public Set<Stmt> getConstantBranches() {
+        return Collections.unmodifiableSet(constantBranches.keySet());
+    }
+
+    /**
+     * @return the only feasible target of given constant branch,
+     * or null if given statement is not a constant branch.
+     */
+    @Nullable
+    public Stmt getFeasibleTarget(Stmt branch) {
+        return constantBranches.get(branch);
+    }
+}
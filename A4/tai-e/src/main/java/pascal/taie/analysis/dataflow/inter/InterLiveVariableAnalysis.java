@@ -0,0 +1,169 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
+import pascal.taie.analysis.graph.icfg.NormalEdge;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.LValue;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.List;
+
+/**
+ * Implementation of interprocedural live variable analysis.
+ * <p>
+ * Different from the intraprocedural analysis, the arguments of a call
+ * site are live only if the corresponding parameters are live at the
+ * entries of the callees, and the return variables of a method are
+ * live only if the results of its call sites are live.
+ */
+public class InterLiveVariableAnalysis extends
+        AbstractInterDataflowAnalysis<JMethod, Stmt, SetFact<Var>> {
+
+    public static final String ID = "inter-livevar";
+
+    public InterLiveVariableAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    @Override
+    public boolean isForward() {
+        return false;
+    }
+
+    @Override
+    public SetFact<Var> newBoundaryFact(Stmt boundary) {
+        // Boundary of live variable analysis is the exits of entry methods.
+        return new SetFact<>();
+    }
+
+    @Override
+    public SetFact<Var> newInitialFact() {
+        return new SetFact<>();
+    }
+
+    @Override
+    public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
+        target.union(fact);
+    }
+
+    @Override
+    protected boolean transferCallNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
+        // the call result is killed by call-to-return edge, and the
+        // arguments are generated by call edges, thus only the receiver
+        // is generated here, unless some callees are not analyzed
+        SetFact<Var> newIn = out.copy();
+        InvokeExp invokeExp = ((Invoke) stmt).getInvokeExp();
+        if (invokeExp instanceof InvokeInstanceExp instanceExp) {
+            newIn.add(instanceExp.getBase());
+        }
+        long callEdges = icfg.getOutEdgesOf(stmt)
+                .stream()
+                .filter(edge -> edge instanceof CallEdge)
+                .count();
+        if (callEdges < icfg.getCalleesOf(stmt).size() || callEdges == 0) {
+            invokeExp.getArgs().forEach(newIn::add);
+        }
+        return update(in, newIn);
+    }
+
+    @Override
+    protected boolean transferNonCallNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
+        SetFact<Var> newIn = out.copy();
+        if (stmt.getDef().isPresent()) {
+            LValue def = stmt.getDef().get();
+            if (def instanceof Var v) {
+                newIn.remove(v);
+            }
+        }
+        // the returned value is live only if it flows from the callers
+        // via the exit of the method
+        if (!(stmt instanceof Return)) {
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var v) {
+                    newIn.add(v);
+                }
+            }
+        }
+        return update(in, newIn);
+    }
+
+    private static boolean update(SetFact<Var> in, SetFact<Var> newIn) {
+        if (in.equals(newIn)) {
+            return false;
+        } else {
+            in.set(newIn);
+            return true;
+        }
+    }
+
+    @Override
+    protected SetFact<Var> transferNormalEdge(NormalEdge<Stmt> edge, SetFact<Var> in) {
+        return in.copy();
+    }
+
+    @Override
+    protected SetFact<Var> transferCallToReturnEdge(
+            CallToReturnEdge<Stmt> edge, SetFact<Var> returnSiteIn) {
+        SetFact<Var> fact = returnSiteIn.copy();
+        Var result = ((Invoke) edge.getSource()).getResult();
+        if (result != null) {
+            fact.remove(result);
+        }
+        return fact;
+    }
+
+    @Override
+    protected SetFact<Var> transferCallEdge(CallEdge<Stmt> edge, SetFact<Var> entryIn) {
+        SetFact<Var> fact = new SetFact<>();
+        List<Var> params = icfg.getContainingMethodOf(edge.getTarget()).getIR().getParams();
+        List<Var> args = ((Invoke) edge.getSource()).getInvokeExp().getArgs();
+        for (int i = 0; i < params.size(); ++i) {
+            if (entryIn.contains(params.get(i))) {
+                fact.add(args.get(i));
+            }
+        }
+        return fact;
+    }
+
+    @Override
+    protected SetFact<Var> transferReturnEdge(ReturnEdge<Stmt> edge, SetFact<Var> returnSiteIn) {
+        SetFact<Var> fact = new SetFact<>();
+        Var result = ((Invoke) edge.getCallSite()).getResult();
+        if (result != null && returnSiteIn.contains(result)) {
+            edge.getReturnVars().forEach(fact::add);
+        }
+        return fact;
+    }
+}
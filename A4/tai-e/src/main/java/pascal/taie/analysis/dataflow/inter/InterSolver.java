@@ -22,67 +22,887 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.CompactICFG;
 import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.LazyICFG;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.SimpleGraph;
+import pascal.taie.util.graph.TopoSorter;
 
+import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Solver for inter-procedural data-flow analysis.
  * The workload of inter-procedural analysis is heavy, thus we always
  * adopt work-list algorithm for efficiency.
+ * <p>
+ * Both forward and backward analyses are supported. For backward analysis,
+ * the facts flow against the ICFG edges: the OUT fact of a node is the meet
+ * of the facts transferred along its out-edges from IN facts of the edge
+ * targets, and the boundary facts are given to the exits of entry methods.
+ * In the comments below, "flows into" and "produces" refer to the flow
+ * direction of the analysis.
+ * <p>
+ * If the ICFG is a {@link LazyICFG}, the nodes are discovered during
+ * solving: the nodes of a method are added to the work list when the
+ * solver first reaches the method (see {@link #doSolveOnDemand()}).
  */
 class InterSolver<Method, Node, Fact> {
 
+    private static final Logger logger = LogManager.getLogger(InterSolver.class);
+
     private final InterDataflowAnalysis<Node, Fact> analysis;
 
     private final ICFG<Method, Node> icfg;
 
+    /**
+     * The ICFG if it is a {@link CompactICFG}, or null otherwise.
+     * The edges of a compact ICFG are visited via its id-based API,
+     * and the edge objects are only created when they are transferred.
+     */
+    @Nullable
+    private final CompactICFG compactICFG;
+
+    private final Schedule schedule;
+
+    /**
+     * Number of worker threads of the parallel schedule.
+     */
+    private final int parallelism;
+
     private DataflowResult<Node, Fact> result;
 
-    private Queue<Node> workList;
+    private InterWorkList<Node> workList;
+
+    /**
+     * Nodes of each method, in the order of the ICFG nodes.
+     */
+    private Map<Method, List<Node>> methodNodes;
+
+    private final boolean isForward;
+
+    /**
+     * Whether the ICFG is built on demand.
+     */
+    private final boolean onDemand;
+
+    /**
+     * Index of each ICFG node, which addresses {@link #versions}.
+     * Unused for {@link CompactICFG}.
+     */
+    private Map<Node, Integer> nodeIndexes;
+
+    /**
+     * Version of the fact produced by each node (OUT fact for forward
+     * analysis, IN fact for backward analysis), which is increased
+     * whenever the fact changes.
+     */
+    private int[] versions;
+
+    /**
+     * The edges along which the facts flow into each node, indexed by
+     * node indexes, which are collected when the node is processed
+     * for the first time. Unused for {@link CompactICFG}.
+     */
+    private FlowInEdges<Node>[] flowInEdges;
+
+    /**
+     * For {@link CompactICFG}, version of the fact produced by the flow
+     * source of each edge when the edge was transferred last time,
+     * or -1 if the edge has not been transferred, indexed by edge ids.
+     */
+    private int[] compactEdgeVersions;
+
+    private LongAdder edgeCacheHits;
+
+    private LongAdder edgeCacheMisses;
 
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
                 ICFG<Method, Node> icfg) {
+        this(analysis, icfg, null);
+    }
+
+    InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
+                ICFG<Method, Node> icfg, @Nullable String schedule) {
+        this(analysis, icfg, schedule, 0);
+    }
+
+    /**
+     * @param schedule how the nodes are scheduled, "nodes" (default) puts
+     *                 all ICFG nodes in a single FIFO work list, "rpo" puts
+     *                 them in a single work list prioritized by reverse
+     *                 postorder of methods (and of the nodes in each method),
+     *                 "scc" solves the strongly-connected components
+     *                 of the call graph one by one in topological order,
+     *                 and "parallel" solves the methods concurrently.
+     * @param parallelism number of worker threads of "parallel" schedule,
+     *                    0 means number of available processors
+     */
+    InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
+                ICFG<Method, Node> icfg, @Nullable String schedule,
+                int parallelism) {
         this.analysis = analysis;
         this.icfg = icfg;
+        this.isForward = analysis.isForward();
+        this.schedule = schedule == null ? Schedule.NODES : switch (schedule) {
+            case "nodes" -> Schedule.NODES;
+            case "rpo" -> Schedule.RPO;
+            case "scc" -> Schedule.SCC;
+            case "parallel" -> Schedule.PARALLEL;
+            default -> throw new ConfigException("Unknown schedule: " + schedule);
+        };
+        this.parallelism = parallelism > 0 ? parallelism :
+                Runtime.getRuntime().availableProcessors();
+        this.onDemand = icfg instanceof LazyICFG;
+        this.compactICFG = icfg instanceof CompactICFG compact ? compact : null;
+        if (onDemand && this.schedule != Schedule.NODES) {
+            throw new ConfigException("Schedule " + schedule +
+                    " is not supported by lazy ICFG");
+        }
     }
 
     DataflowResult<Node, Fact> solve() {
         result = new DataflowResult<>();
+        if (onDemand) {
+            doSolveOnDemand();
+            logger.debug("Edge transfers: {} performed, {} skipped, {} methods reached",
+                    edgeCacheMisses, edgeCacheHits, methodNodes.size());
+            return result;
+        }
         initialize();
-        doSolve();
+        switch (schedule) {
+            case NODES -> doSolve(false);
+            case RPO -> doSolve(true);
+            case SCC -> doSolveBySCC();
+            case PARALLEL -> doSolveInParallel();
+        }
+        logger.debug("Edge transfers: {} performed, {} skipped",
+                edgeCacheMisses, edgeCacheHits);
         return result;
     }
 
     private void initialize() {
-        // TODO - finish me
-        List<Node> entries = icfg.entryMethods().map(icfg::getEntryOf).toList();
+        Set<Node> boundaries = icfg.entryMethods()
+                .map(isForward ? icfg::getEntryOf : icfg::getExitOf)
+                .collect(Collectors.toSet());
         icfg.getNodes().forEach(node -> {
-            if (entries.contains(node)) {
-                result.setInFact(node, analysis.newBoundaryFact(node));
+            Fact fact = boundaries.contains(node) ?
+                    analysis.newBoundaryFact(node) : analysis.newInitialFact();
+            if (isForward) {
+                result.setInFact(node, fact);
+                result.setOutFact(node, analysis.newInitialFact());
             } else {
                 result.setInFact(node, analysis.newInitialFact());
+                result.setOutFact(node, fact);
             }
-            result.setOutFact(node, analysis.newInitialFact());
         });
+        methodNodes = new LinkedHashMap<>();
+        icfg.getNodes().forEach(node -> methodNodes.computeIfAbsent(
+                icfg.getContainingMethodOf(node), m -> new ArrayList<>()).add(node));
+        versions = new int[icfg.getNumberOfNodes()];
+        if (compactICFG != null) {
+            // the nodes are indexed by their ids in compact ICFG
+            compactEdgeVersions = new int[compactICFG.getNumberOfEdges()];
+            Arrays.fill(compactEdgeVersions, -1);
+        } else {
+            nodeIndexes = InterWorkList.index(List.copyOf(icfg.getNodes()));
+            flowInEdges = newFlowInEdges(nodeIndexes.size());
+        }
+        edgeCacheHits = new LongAdder();
+        edgeCacheMisses = new LongAdder();
+    }
+
+    /**
+     * @return the number of edge transfers that were skipped as
+     * the facts produced by their sources had not changed.
+     */
+    long getEdgeCacheHits() {
+        return edgeCacheHits.sum();
     }
 
-    private void doSolve() {
-        // TODO - finish me
-//        workList = new ArrayDeque<>(icfg.entryMethods().map(icfg::getEntryOf).toList());
-        workList = new ArrayDeque<>(icfg.getNodes());
+    /**
+     * @return the number of edge transfers that were performed.
+     */
+    long getEdgeCacheMisses() {
+        return edgeCacheMisses.sum();
+    }
+
+    /**
+     * Solves the analysis with a single work list holding all ICFG nodes.
+     *
+     * @param prioritized if true, the nodes are prioritized by reverse
+     *                    postorder (postorder for backward analysis),
+     *                    otherwise they are processed in FIFO order
+     */
+    private void doSolve(boolean prioritized) {
+        List<Node> nodes;
+        if (prioritized) {
+            nodes = reversePostorder();
+            if (!isForward) {
+                Collections.reverse(nodes);
+            }
+        } else {
+            nodes = List.copyOf(icfg.getNodes());
+        }
+        workList = new InterWorkList<>(nodes, InterWorkList.index(nodes), prioritized);
+        workList.addAll(nodes);
         while (!workList.isEmpty()) {
             Node node = workList.poll();
-            Fact in = result.getInFact(node);
-            Fact out = result.getOutFact(node);
+            if (processNode(node, false)) {
+                workList.addAll(flowSuccsOf(node));
+            }
+        }
+    }
+
+    /**
+     * Meets the facts flowing into given node and applies its transfer function.
+     * <p>
+     * An edge is transferred only if the fact produced by its flow source
+     * has changed since the edge was transferred last time. Otherwise, the
+     * edge would yield the same fact as last time, which has already been
+     * met into the fact of the node (such facts only grow), so the transfer
+     * and the meet are both skipped.
+     *
+     * @param local if true, the facts of call and return edges are not
+     *              transferred here, as they are delivered by the flow
+     *              sources of the edges (see {@link #doSolveInParallel()}).
+     * @return true if the fact produced by the node changed.
+     */
+    private boolean processNode(Node node, boolean local) {
+        Fact in = result.getInFact(node);
+        Fact out = result.getOutFact(node);
+        Fact target = isForward ? in : out;
+        int index;
+        if (compactICFG != null) {
+            index = compactICFG.getId((Stmt) node);
+            meetCompactInEdges(index, local, target);
+        } else {
+            index = nodeIndexes.get(node);
+            meetInEdges(node, index, local, target);
+        }
+        if (analysis.transferNode(node, in, out)) {
+            ++versions[index];
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Meets the facts flowing into given node along its edges into target.
+     */
+    private void meetInEdges(Node node, int index, boolean local, Fact target) {
+        FlowInEdges<Node> inEdges = flowInEdges[index];
+        if (inEdges == null) {
+            inEdges = new FlowInEdges<>();
+            for (ICFGEdge<Node> edge : flowInEdgesOf(node)) {
+                inEdges.add(edge, nodeIndexes.get(flowSourceOf(edge)));
+            }
+            flowInEdges[index] = inEdges;
+        }
+        for (int i = 0; i < inEdges.size; ++i) {
+            ICFGEdge<Node> edge = inEdges.getEdge(i);
+            if (local && isInterEdge(edge)) {
+                continue;
+            }
+            int source = inEdges.sources[i];
+            if (source < 0) {
+                Integer sourceIndex = nodeIndexes.get(flowSourceOf(edge));
+                if (sourceIndex == null) {
+                    // the source has not been reached by on-demand solving,
+                    // thus its fact is still the initial fact
+                    continue;
+                }
+                source = inEdges.sources[i] = sourceIndex;
+            }
+            int version = versions[source];
+            if (inEdges.versions[i] == version) {
+                edgeCacheHits.increment();
+            } else {
+                inEdges.versions[i] = version;
+                edgeCacheMisses.increment();
+                analysis.meetInto(analysis.transferEdge(edge,
+                        producedFactOf(flowSourceOf(edge))), target);
+            }
+        }
+    }
+
+    /**
+     * Meets the facts flowing into given node of {@link CompactICFG}
+     * along its edges into target.
+     */
+    private void meetCompactInEdges(int node, boolean local, Fact target) {
+        CompactICFG icfg = Objects.requireNonNull(compactICFG);
+        if (isForward) {
+            for (int i = 0, n = icfg.getInDegreeOf(node); i < n; ++i) {
+                int edge = icfg.getInEdge(node, i);
+                meetCompactEdge(edge, icfg.getSourceOf(edge), local, target);
+            }
+        } else {
+            for (int edge = icfg.getOutEdgeStart(node),
+                 end = icfg.getOutEdgeEnd(node); edge < end; ++edge) {
+                meetCompactEdge(edge, icfg.getTargetOf(edge), local, target);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void meetCompactEdge(int edge, int source, boolean local, Fact target) {
+        CompactICFG icfg = Objects.requireNonNull(compactICFG);
+        if (local && switch (icfg.getKindOf(edge)) {
+            case CALL, RETURN -> true;
+            case NORMAL, CALL_TO_RETURN -> false;
+        }) {
+            return;
+        }
+        int version = versions[source];
+        if (compactEdgeVersions[edge] == version) {
+            edgeCacheHits.increment();
+        } else {
+            compactEdgeVersions[edge] = version;
+            edgeCacheMisses.increment();
+            analysis.meetInto(analysis.transferEdge(
+                    (ICFGEdge<Node>) icfg.getEdge(edge),
+                    producedFactOf((Node) icfg.getNode(source))), target);
+        }
+    }
+
+    /**
+     * @return the edges along which the facts flow into given node.
+     */
+    private Set<ICFGEdge<Node>> flowInEdgesOf(Node node) {
+        return isForward ? icfg.getInEdgesOf(node) : icfg.getOutEdgesOf(node);
+    }
+
+    /**
+     * @return the edges along which the facts flow out of given node.
+     */
+    private Set<ICFGEdge<Node>> flowOutEdgesOf(Node node) {
+        return isForward ? icfg.getOutEdgesOf(node) : icfg.getInEdgesOf(node);
+    }
+
+    /**
+     * @return the nodes that the facts of given node flow into.
+     */
+    private Set<Node> flowSuccsOf(Node node) {
+        return isForward ? icfg.getSuccsOf(node) : icfg.getPredsOf(node);
+    }
+
+    /**
+     * @return the node whose fact flows along given edge.
+     */
+    private Node flowSourceOf(ICFGEdge<Node> edge) {
+        return isForward ? edge.getSource() : edge.getTarget();
+    }
+
+    /**
+     * @return the node that the fact flows into along given edge.
+     */
+    private Node flowTargetOf(ICFGEdge<Node> edge) {
+        return isForward ? edge.getTarget() : edge.getSource();
+    }
+
+    /**
+     * @return the fact produced by the transfer function of given node.
+     */
+    private Fact producedFactOf(Node node) {
+        return isForward ? result.getOutFact(node) : result.getInFact(node);
+    }
+
+    /**
+     * @return the fact that the facts flowing into given node are met into.
+     */
+    private Fact consumedFactOf(Node node) {
+        return isForward ? result.getInFact(node) : result.getOutFact(node);
+    }
+
+    /**
+     * Solves the analysis on an ICFG which is built on demand.
+     * Initially, only the entry methods are reached. When a node is
+     * processed for the first time, or the fact produced by it changes,
+     * the nodes that its fact flows into are added to the work list, and
+     * their methods are reached if they have not been; thus the ICFG is
+     * expanded only for the methods which the facts actually flow into.
+     * As all nodes of a reached method are processed at least once (as
+     * the other schedules do), the results of the reached nodes are the
+     * same as those of solving the complete ICFG.
+     */
+    private void doSolveOnDemand() {
+        methodNodes = new LinkedHashMap<>();
+        List<Node> nodes = new ArrayList<>();
+        nodeIndexes = Maps.newMap();
+        versions = new int[64];
+        flowInEdges = newFlowInEdges(64);
+        edgeCacheHits = new LongAdder();
+        edgeCacheMisses = new LongAdder();
+        workList = new InterWorkList<>(nodes, nodeIndexes, false);
+        icfg.entryMethods().forEach(method -> {
+            reach(method, nodes);
+            if (isForward) {
+                Node entry = icfg.getEntryOf(method);
+                result.setInFact(entry, analysis.newBoundaryFact(entry));
+            } else {
+                Node exit = icfg.getExitOf(method);
+                result.setOutFact(exit, analysis.newBoundaryFact(exit));
+            }
+        });
+        BitSet visited = new BitSet();
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            int index = nodeIndexes.get(node);
+            if (processNode(node, false) || !visited.get(index)) {
+                visited.set(index);
+                for (Node succ : flowSuccsOf(node)) {
+                    reach(icfg.getContainingMethodOf(succ), nodes);
+                    workList.add(succ);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reaches given method if it has not been reached, i.e., initializes
+     * the facts of its nodes and adds the nodes to the work list.
+     * The nodes are collected by traversing the intra-procedural edges
+     * from the entry and exit of the method.
+     *
+     * @param nodes the nodes reached so far, indexed by their indexes
+     */
+    private void reach(Method method, List<Node> nodes) {
+        if (methodNodes.containsKey(method)) {
+            return;
+        }
+        List<Node> reached = new ArrayList<>();
+        methodNodes.put(method, reached);
+        Set<Node> visited = Sets.newSet();
+        List<ICFGEdge<Node>> interEdges = new ArrayList<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(icfg.getEntryOf(method));
+        stack.push(icfg.getExitOf(method));
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (!visited.add(node)) {
+                continue;
+            }
+            reached.add(node);
+            for (ICFGEdge<Node> edge : icfg.getOutEdgesOf(node)) {
+                if (isInterEdge(edge)) {
+                    interEdges.add(edge);
+                } else {
+                    stack.push(edge.getTarget());
+                }
+            }
+            for (ICFGEdge<Node> edge : icfg.getInEdgesOf(node)) {
+                if (isInterEdge(edge)) {
+                    interEdges.add(edge);
+                } else {
+                    stack.push(edge.getSource());
+                }
+            }
+        }
+        for (Node node : reached) {
+            nodeIndexes.put(node, nodes.size());
+            nodes.add(node);
+            result.setInFact(node, analysis.newInitialFact());
+            result.setOutFact(node, analysis.newInitialFact());
+            workList.add(node);
+        }
+        if (versions.length < nodes.size()) {
+            int capacity = Math.max(nodes.size(), versions.length * 2);
+            versions = Arrays.copyOf(versions, capacity);
+            flowInEdges = Arrays.copyOf(flowInEdges, capacity);
+        }
+        // the lazy ICFG builds the call and return edges between the method
+        // and the other methods now, so they are added to the in-edges
+        // which have been collected for the nodes of the other methods
+        for (ICFGEdge<Node> edge : interEdges) {
+            Integer target = nodeIndexes.get(flowTargetOf(edge));
+            if (target != null && flowInEdges[target] != null) {
+                flowInEdges[target].add(edge, nodeIndexes.get(flowSourceOf(edge)));
+            }
+        }
+    }
 
-            icfg.getInEdgesOf(node).forEach(edge -> analysis.meetInto(analysis.transferEdge(edge,
-                    result.getOutFact(edge.getSource())), in));
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <Node> FlowInEdges<Node>[] newFlowInEdges(int length) {
+        return (FlowInEdges<Node>[]) new FlowInEdges[length];
+    }
 
-            if (analysis.transferNode(node, in, out)) {
-                workList.addAll(icfg.getSuccsOf(node));
+    /**
+     * @return the ICFG nodes ordered by the reverse postorder of methods
+     * in the call graph (starting from the entry methods), where the nodes
+     * of each method are ordered by reverse postorder of its CFG.
+     */
+    private List<Node> reversePostorder() {
+        List<Method> methods = reversePostorder(
+                icfg.entryMethods().toList(), methodNodes.keySet(),
+                method -> {
+                    Set<Method> callees = Sets.newHybridSet();
+                    methodNodes.get(method)
+                            .stream()
+                            .filter(icfg::isCallSite)
+                            .forEach(callSite -> callees.addAll(icfg.getCalleesOf(callSite)));
+                    return callees;
+                });
+        List<Node> order = new ArrayList<>(icfg.getNodes().size());
+        for (Method method : methods) {
+            order.addAll(reversePostorder(
+                    List.of(icfg.getEntryOf(method)), methodNodes.get(method),
+                    node -> icfg.getSuccsOf(node)
+                            .stream()
+                            .filter(succ -> icfg.getContainingMethodOf(succ).equals(method))
+                            .toList()));
+        }
+        return order;
+    }
+
+    /**
+     * @return given nodes in reverse postorder of the depth-first search
+     * starting from roots. The nodes unreachable from roots are ordered by
+     * the subsequent searches starting from them.
+     */
+    private static <N> List<N> reversePostorder(
+            Collection<N> roots, Collection<N> nodes,
+            Function<N, ? extends Collection<N>> succs) {
+        List<N> order = new ArrayList<>(nodes.size());
+        Set<N> visited = Sets.newSet(nodes.size());
+        for (N root : roots) {
+            postorder(root, succs, visited, order);
+        }
+        for (N node : nodes) {
+            postorder(node, succs, visited, order);
+        }
+        Collections.reverse(order);
+        return order;
+    }
+
+    /**
+     * Iterative depth-first search, so that deep call chains
+     * (or large methods) do not overflow the call stack.
+     */
+    private static <N> void postorder(N root, Function<N, ? extends Collection<N>> succs,
+                                      Set<N> visited, List<N> order) {
+        if (!visited.add(root)) {
+            return;
+        }
+        Deque<N> nodes = new ArrayDeque<>();
+        Deque<Iterator<N>> iters = new ArrayDeque<>();
+        nodes.push(root);
+        iters.push(succs.apply(root).iterator());
+        while (!nodes.isEmpty()) {
+            Iterator<N> it = iters.peek();
+            if (it.hasNext()) {
+                N succ = it.next();
+                if (visited.add(succ)) {
+                    nodes.push(succ);
+                    iters.push(succs.apply(succ).iterator());
+                }
+            } else {
+                order.add(nodes.pop());
+                iters.pop();
             }
         }
     }
+
+    /**
+     * Solves the strongly-connected components (SCCs) of the call graph
+     * in topological order (callers before callees, or callees before
+     * callers for backward analysis). Each SCC has its own
+     * work list and is iterated until stable; when the facts flow to
+     * the nodes of another SCC (via call or return edges), that SCC is
+     * scheduled, and the pending SCC that comes first in topological
+     * order is always solved next. Thus, the nodes are only re-visited
+     * when the facts of their own recursion cluster (or of the methods
+     * connected by calls) changed.
+     */
+    private void doSolveBySCC() {
+        SimpleGraph<Method> callGraph = new SimpleGraph<>();
+        methodNodes.forEach((method, nodes) -> {
+            callGraph.addNode(method);
+            nodes.stream()
+                    .filter(icfg::isCallSite)
+                    .forEach(callSite -> icfg.getCalleesOf(callSite)
+                            .forEach(callee -> callGraph.addEdge(method, callee)));
+        });
+        List<MergedNode<Method>> sccs = new ArrayList<>(
+                new TopoSorter<>(new MergedSCCGraph<>(callGraph)).get());
+        if (!isForward) {
+            Collections.reverse(sccs);
+        }
+        List<Node> nodes = List.copyOf(icfg.getNodes());
+        Map<Node, Integer> indexes = InterWorkList.index(nodes);
+        // rank of the SCC containing each node
+        int[] ranks = new int[nodes.size()];
+        // the SCCs are disjoint, so their work lists share the bit set
+        BitSet members = new BitSet(nodes.size());
+        List<InterWorkList<Node>> workLists = new ArrayList<>(sccs.size());
+        for (int i = 0; i < sccs.size(); ++i) {
+            InterWorkList<Node> sccWorkList = new InterWorkList<>(nodes, indexes, members);
+            for (Method method : sccs.get(i).getNodes()) {
+                for (Node node : methodNodes.getOrDefault(method, List.of())) {
+                    ranks[indexes.get(node)] = i;
+                    sccWorkList.add(node);
+                }
+            }
+            workLists.add(sccWorkList);
+        }
+        BitSet pending = new BitSet(sccs.size());
+        pending.set(0, sccs.size());
+        int i;
+        while ((i = pending.nextSetBit(0)) >= 0) {
+            pending.clear(i);
+            workList = workLists.get(i);
+            while (!workList.isEmpty()) {
+                Node node = workList.poll();
+                if (processNode(node, false)) {
+                    for (Node succ : flowSuccsOf(node)) {
+                        int rank = ranks[indexes.get(succ)];
+                        workLists.get(rank).add(succ);
+                        if (rank != i) {
+                            pending.set(rank);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves the methods concurrently in a {@link ForkJoinPool}.
+     * <p>
+     * Each method has its own work list, and the nodes of a method are
+     * only processed by one thread at a time, so the facts of the nodes
+     * are never accessed concurrently. The facts only cross the methods
+     * via call and return edges: when the fact produced by a call site
+     * (or an exit, or a return site and an entry for backward analysis)
+     * changes, its thread transfers the fact along the edges and posts
+     * the results to the inboxes of the methods that the facts flow into,
+     * which are then scheduled to meet the posted facts into their nodes.
+     * This requires the analysis to be thread-safe and the facts given by
+     * {@link InterDataflowAnalysis#transferEdge} for call and return
+     * edges not to be shared with the source nodes.
+     * <p>
+     * The solving terminates when no method is scheduled or running.
+     */
+    private void doSolveInParallel() {
+        Map<Method, MethodTask> tasks = Maps.newMap(methodNodes.size());
+        methodNodes.forEach((method, nodes) ->
+                tasks.put(method, new MethodTask(nodes)));
+        // transfer initial facts along the call and return edges, which
+        // are later transferred only when the facts of their sources change
+        icfg.getNodes().forEach(node -> flowOutEdgesOf(node).forEach(edge -> {
+            if (isInterEdge(edge)) {
+                analysis.meetInto(analysis.transferEdge(edge, producedFactOf(node)),
+                        consumedFactOf(flowTargetOf(edge)));
+            }
+        }));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        ParallelContext context = new ParallelContext(pool, tasks);
+        try {
+            tasks.values().forEach(context::schedule);
+            context.await();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static boolean isInterEdge(ICFGEdge<?> edge) {
+        return edge instanceof CallEdge || edge instanceof ReturnEdge;
+    }
+
+    /**
+     * Tracks the running method tasks of parallel solving.
+     */
+    private class ParallelContext {
+
+        private final ForkJoinPool pool;
+
+        private final Map<Method, MethodTask> tasks;
+
+        /**
+         * Number of scheduled tasks, plus one held by {@link #await()}
+         * until all initial tasks are scheduled.
+         */
+        private final AtomicInteger active = new AtomicInteger(1);
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private ParallelContext(ForkJoinPool pool, Map<Method, MethodTask> tasks) {
+            this.pool = pool;
+            this.tasks = tasks;
+        }
+
+        /**
+         * Submits given task to the pool if it is not scheduled.
+         */
+        private void schedule(MethodTask task) {
+            if (task.scheduled.compareAndSet(false, true)) {
+                active.incrementAndGet();
+                pool.execute(() -> run(task));
+            }
+        }
+
+        private void run(MethodTask task) {
+            try {
+                task.run(this);
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                finish();
+            }
+        }
+
+        private void finish() {
+            if (active.decrementAndGet() == 0) {
+                done.countDown();
+            }
+        }
+
+        private void post(Node target, Fact fact) {
+            MethodTask task = tasks.get(icfg.getContainingMethodOf(target));
+            task.inbox.add(new Message<>(target, fact));
+            schedule(task);
+        }
+
+        /**
+         * Waits until all tasks finish.
+         */
+        private void await() {
+            finish();
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AnalysisException("Interrupted while solving", e);
+            }
+            if (failure.get() != null) {
+                throw new AnalysisException("Failed to solve", failure.get());
+            }
+        }
+    }
+
+    /**
+     * Solves the nodes of a method in parallel solving.
+     */
+    private class MethodTask {
+
+        private final InterWorkList<Node> workList;
+
+        /**
+         * The facts posted to the nodes of this method by other methods.
+         */
+        private final Queue<Message<Node, Fact>> inbox = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Whether this task is submitted to the pool and not finished yet.
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        private MethodTask(List<Node> nodes) {
+            workList = new InterWorkList<>(nodes, InterWorkList.index(nodes), false);
+            workList.addAll(nodes);
+        }
+
+        private void run(ParallelContext context) {
+            do {
+                Message<Node, Fact> message;
+                while ((message = inbox.poll()) != null) {
+                    analysis.meetInto(message.fact(), consumedFactOf(message.target()));
+                    workList.add(message.target());
+                }
+                while (!workList.isEmpty()) {
+                    Node node = workList.poll();
+                    if (processNode(node, true)) {
+                        Fact fact = producedFactOf(node);
+                        for (ICFGEdge<Node> edge : flowOutEdgesOf(node)) {
+                            if (isInterEdge(edge)) {
+                                context.post(flowTargetOf(edge),
+                                        analysis.transferEdge(edge, fact));
+                            } else {
+                                workList.add(flowTargetOf(edge));
+                            }
+                        }
+                    }
+                }
+                scheduled.set(false);
+                // the messages posted before the flag was cleared
+                // have not scheduled this task again, so handle them here
+            } while (!inbox.isEmpty() && scheduled.compareAndSet(false, true));
+        }
+    }
+
+    private record Message<Node, Fact>(Node target, Fact fact) {
+    }
+
+    /**
+     * The edges along which the facts flow into a node, together with
+     * the indexes of their flow sources, and the versions of the facts
+     * produced by the sources when the edges were transferred last time,
+     * all indexed by the slots of the edges.
+     */
+    private static class FlowInEdges<Node> {
+
+        private Object[] edges = new Object[2];
+
+        /**
+         * Index of the flow source of each edge, or -1 if the source
+         * has not been reached by on-demand solving.
+         */
+        private int[] sources = new int[2];
+
+        /**
+         * Version of the fact produced by the flow source of each edge
+         * when the edge was transferred last time, or -1 if the edge
+         * has not been transferred.
+         */
+        private int[] versions = new int[2];
+
+        private int size = 0;
+
+        private void add(ICFGEdge<Node> edge, @Nullable Integer source) {
+            if (size == edges.length) {
+                int capacity = size * 2;
+                edges = Arrays.copyOf(edges, capacity);
+                sources = Arrays.copyOf(sources, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+            }
+            edges[size] = edge;
+            sources[size] = source != null ? source : -1;
+            versions[size] = -1;
+            ++size;
+        }
+
+        @SuppressWarnings("unchecked")
+        private ICFGEdge<Node> getEdge(int i) {
+            return (ICFGEdge<Node>) edges[i];
+        }
+    }
+
+    private enum Schedule {
+        NODES, RPO, SCC, PARALLEL
+    }
 }
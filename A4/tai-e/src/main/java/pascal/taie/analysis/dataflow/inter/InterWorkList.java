@@ -0,0 +1,144 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Work list of ICFG nodes, which holds each node at most once.
+ * <p>
+ * The nodes are keyed by their indexes (dense integers assigned by
+ * the solver), and the membership is tracked by a bit set, so that
+ * adding a node which is already in the work list costs neither
+ * a queue entry nor a hash lookup of the queue. The work list either
+ * keeps the first-in-first-out order, or always polls the node with
+ * the smallest index, in which case the indexes serve as priorities.
+ *
+ * @param <Node> type of ICFG nodes
+ */
+class InterWorkList<Node> {
+
+    /**
+     * The nodes, indexed by their indexes.
+     */
+    private final List<Node> nodes;
+
+    private final Map<Node, Integer> indexes;
+
+    /**
+     * Indexes of the nodes in this work list.
+     */
+    private final BitSet members;
+
+    /**
+     * Queue of the nodes in FIFO order, or null if the nodes are
+     * polled by priority.
+     */
+    private final Queue<Node> queue;
+
+    /**
+     * @param nodes       the nodes which can be added to this work list,
+     *                    whose positions in the list are their indexes
+     * @param indexes     the map from each node to its index
+     * @param prioritized if true, the node with the smallest index is polled
+     *                    first, otherwise the nodes are polled in FIFO order
+     */
+    InterWorkList(List<Node> nodes, Map<Node, Integer> indexes, boolean prioritized) {
+        this(nodes, indexes, new BitSet(nodes.size()), prioritized);
+    }
+
+    /**
+     * Creates a FIFO work list whose membership is tracked by given bit set.
+     * The bit set can be shared by multiple work lists, as long as their
+     * nodes are disjoint, which saves a bit set per work list.
+     */
+    InterWorkList(List<Node> nodes, Map<Node, Integer> indexes, BitSet members) {
+        this(nodes, indexes, members, false);
+    }
+
+    private InterWorkList(List<Node> nodes, Map<Node, Integer> indexes,
+                          BitSet members, boolean prioritized) {
+        this.nodes = nodes;
+        this.indexes = indexes;
+        this.members = members;
+        this.queue = prioritized ? null : new ArrayDeque<>();
+    }
+
+    /**
+     * @return a map from each node to its index in given list.
+     */
+    static <Node> Map<Node, Integer> index(List<Node> nodes) {
+        Map<Node, Integer> indexes = Maps.newMap(nodes.size());
+        for (int i = 0; i < nodes.size(); ++i) {
+            indexes.put(nodes.get(i), i);
+        }
+        return indexes;
+    }
+
+    /**
+     * Adds a node to this work list if it is absent.
+     *
+     * @return true if the node was absent in this work list.
+     */
+    boolean add(Node node) {
+        int index = indexes.get(node);
+        if (members.get(index)) {
+            return false;
+        }
+        members.set(index);
+        if (queue != null) {
+            queue.add(node);
+        }
+        return true;
+    }
+
+    void addAll(Iterable<Node> nodes) {
+        nodes.forEach(this::add);
+    }
+
+    /**
+     * Retrieves and removes the next node of this work list.
+     */
+    Node poll() {
+        Node node;
+        if (queue != null) {
+            node = queue.poll();
+            members.clear(indexes.get(node));
+        } else {
+            int index = members.nextSetBit(0);
+            members.clear(index);
+            node = nodes.get(index);
+        }
+        return node;
+    }
+
+    boolean isEmpty() {
+        return queue != null ? queue.isEmpty() : members.isEmpty();
+    }
+}
@@ -0,0 +1,551 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.icfg;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ICFG whose edges are stored in arrays.
+ * <p>
+ * Each node (i.e., {@link Stmt} of the reachable methods) is assigned
+ * a dense id, and the nodes of a method have consecutive ids. Each edge
+ * is also assigned an id, and the edges are stored in compressed sparse
+ * row (CSR) form: the out-edges of a node are the edges whose ids range
+ * from {@link #getOutEdgeStart(int)} to {@link #getOutEdgeEnd(int)},
+ * and their sources, targets and kinds are kept in int (byte) arrays
+ * indexed by edge ids. The in-edges of a node are stored likewise as
+ * an array of edge ids.
+ * <p>
+ * The edge objects required by {@link ICFG} API, e.g.,
+ * {@link #getInEdgesOf(Stmt)}, are created on demand by
+ * {@link #getEdge(int)}, so clients which traverse large ICFGs
+ * had better use the id-based API.
+ */
+public class CompactICFG extends AbstractICFG<JMethod, Stmt> {
+
+    private static final Logger logger = LogManager.getLogger(CompactICFG.class);
+
+    /**
+     * Kinds of ICFG edges.
+     */
+    public enum EdgeKind {
+        /**
+         * @see NormalEdge
+         */
+        NORMAL,
+        /**
+         * @see CallToReturnEdge
+         */
+        CALL_TO_RETURN,
+        /**
+         * @see CallEdge
+         */
+        CALL,
+        /**
+         * @see ReturnEdge
+         */
+        RETURN,
+    }
+
+    private static final EdgeKind[] KINDS = EdgeKind.values();
+
+    /**
+     * The nodes, indexed by their ids.
+     */
+    private final Stmt[] nodes;
+
+    /**
+     * Open-addressing hash table which maps each node to its id, i.e.,
+     * a slot holds the id of a node (or -1 if the slot is empty), and the
+     * node itself is found in {@link #nodes}. This takes one int slot
+     * per node (at load factor 0.5) instead of an entry and a boxed id
+     * per node as a {@link java.util.HashMap} does.
+     */
+    private final int[] idTable;
+
+    /**
+     * Id of the method containing each node, indexed by node ids.
+     */
+    private final int[] nodeMethods;
+
+    /**
+     * The methods, indexed by their ids.
+     */
+    private final JMethod[] methods;
+
+    private final Map<JMethod, Integer> methodIds;
+
+    /**
+     * Ids of entry and exit nodes of each method.
+     */
+    private final int[] entries, exits;
+
+    /**
+     * Return variables and thrown exceptions of each method,
+     * which are carried by return edges.
+     */
+    private final List<Set<Var>> returnVars;
+
+    private final List<Set<ClassType>> exceptions;
+
+    /**
+     * The out-edges of node i are the edges whose ids are in
+     * [outStarts[i], outStarts[i + 1]).
+     */
+    private final int[] outStarts;
+
+    private final int[] edgeSources, edgeTargets;
+
+    private final byte[] edgeKinds;
+
+    /**
+     * The extra information of each edge, i.e., the CFG edge of a normal
+     * or call-to-return edge, or the call site of a return edge.
+     */
+    private final Object[] edgeInfos;
+
+    /**
+     * The in-edges of node i are edges inEdges[inStarts[i]] to
+     * inEdges[inStarts[i + 1] - 1].
+     */
+    private final int[] inStarts, inEdges;
+
+    public CompactICFG(CallGraph<Stmt, JMethod> callGraph) {
+        super(callGraph);
+        // assign ids to methods and nodes
+        List<CFG<Stmt>> cfgs = new ArrayList<>();
+        List<JMethod> methodList = new ArrayList<>();
+        List<Stmt> nodeList = new ArrayList<>();
+        callGraph.forEach(method -> {
+            CFG<Stmt> cfg = ICFGBuilder.getCFGOf(method);
+            if (cfg == null) {
+                logger.warn("CFG of {} is absent, try to fix this by adding option -scope=reachable", method);
+                return;
+            }
+            cfgs.add(cfg);
+            methodList.add(method);
+            cfg.forEach(nodeList::add);
+        });
+        methods = methodList.toArray(new JMethod[0]);
+        methodIds = Maps.newMap(methods.length);
+        nodes = nodeList.toArray(new Stmt[0]);
+        idTable = new int[Integer.highestOneBit(
+                Math.max(1, nodes.length) * 2 - 1) * 2];
+        Arrays.fill(idTable, -1);
+        for (int i = 0; i < nodes.length; ++i) {
+            idTable[findSlot(nodes[i])] = i;
+        }
+        nodeMethods = new int[nodes.length];
+        entries = new int[methods.length];
+        exits = new int[methods.length];
+        returnVars = new ArrayList<>(methods.length);
+        exceptions = new ArrayList<>(methods.length);
+        int id = 0;
+        for (int m = 0; m < methods.length; ++m) {
+            methodIds.put(methods[m], m);
+            CFG<Stmt> cfg = cfgs.get(m);
+            for (int end = id + cfg.getNumberOfNodes(); id < end; ++id) {
+                nodeMethods[id] = m;
+            }
+            entries[m] = getId(cfg.getEntry());
+            exits[m] = getId(cfg.getExit());
+            Set<Var> retVars = Sets.newHybridSet();
+            Set<ClassType> thrown = Sets.newHybridSet();
+            cfg.getInEdgesOf(cfg.getExit()).forEach(edge -> {
+                if (edge.getKind() == Edge.Kind.RETURN &&
+                        ((Return) edge.getSource()).getValue() != null) {
+                    retVars.add(((Return) edge.getSource()).getValue());
+                }
+                if (edge.isExceptional()) {
+                    thrown.addAll(edge.getExceptions());
+                }
+            });
+            returnVars.add(Collections.unmodifiableSet(retVars));
+            exceptions.add(Collections.unmodifiableSet(thrown));
+        }
+        // collect edges
+        EdgeBuffer buffer = new EdgeBuffer(nodes.length);
+        for (int m = 0; m < methods.length; ++m) {
+            CFG<Stmt> cfg = cfgs.get(m);
+            for (Stmt stmt : cfg) {
+                int source = getId(stmt);
+                boolean isCallSite = isCallSite(stmt);
+                EdgeKind kind = isCallSite ? EdgeKind.CALL_TO_RETURN : EdgeKind.NORMAL;
+                cfg.getOutEdgesOf(stmt).forEach(edge ->
+                        buffer.add(source, getId(edge.getTarget()), kind, edge));
+                if (isCallSite) {
+                    for (JMethod callee : getCalleesOf(stmt)) {
+                        Integer calleeId = methodIds.get(callee);
+                        if (calleeId == null) {
+                            logger.warn("CFG of {} is missing", callee);
+                            continue;
+                        }
+                        buffer.add(source, entries[calleeId], EdgeKind.CALL, null);
+                        for (Stmt returnSite : cfg.getSuccsOf(stmt)) {
+                            buffer.add(exits[calleeId], getId(returnSite),
+                                    EdgeKind.RETURN, stmt);
+                        }
+                    }
+                }
+            }
+        }
+        // sort edges by their sources
+        int nEdges = buffer.size;
+        outStarts = buffer.starts(buffer.sources);
+        int[] order = buffer.sort(buffer.sources, outStarts);
+        edgeSources = new int[nEdges];
+        edgeTargets = new int[nEdges];
+        edgeKinds = new byte[nEdges];
+        edgeInfos = new Object[nEdges];
+        for (int e = 0; e < nEdges; ++e) {
+            int i = order[e];
+            edgeSources[e] = buffer.sources[i];
+            edgeTargets[e] = buffer.targets[i];
+            edgeKinds[e] = buffer.kinds[i];
+            edgeInfos[e] = buffer.infos[i];
+        }
+        // index in-edges by their targets
+        inStarts = buffer.starts(edgeTargets);
+        inEdges = buffer.sort(edgeTargets, inStarts);
+    }
+
+    // ---------- id-based API ----------
+
+    /**
+     * @return the number of nodes, which is also the upper bound
+     * (exclusive) of node ids.
+     */
+    @Override
+    public int getNumberOfNodes() {
+        return nodes.length;
+    }
+
+    /**
+     * @return the id of given node, or -1 if the node is not in this ICFG.
+     */
+    public int getId(Stmt node) {
+        return idTable[findSlot(node)];
+    }
+
+    /**
+     * @return the slot of {@link #idTable} which holds the id of given
+     * node, or the empty slot where the id should be put.
+     */
+    private int findSlot(Object node) {
+        int mask = idTable.length - 1;
+        int h = node.hashCode();
+        int slot = (h ^ (h >>> 16)) & mask;
+        int id;
+        while ((id = idTable[slot]) != -1 && !nodes[id].equals(node)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * @return the node of given id.
+     */
+    public Stmt getNode(int id) {
+        return nodes[id];
+    }
+
+    /**
+     * @return the number of edges, which is also the upper bound
+     * (exclusive) of edge ids.
+     */
+    public int getNumberOfEdges() {
+        return edgeTargets.length;
+    }
+
+    /**
+     * @return id of the first out-edge of given node.
+     */
+    public int getOutEdgeStart(int node) {
+        return outStarts[node];
+    }
+
+    /**
+     * @return id of the last out-edge of given node plus one.
+     */
+    public int getOutEdgeEnd(int node) {
+        return outStarts[node + 1];
+    }
+
+    /**
+     * @return the number of in-edges of given node.
+     */
+    public int getInDegreeOf(int node) {
+        return inStarts[node + 1] - inStarts[node];
+    }
+
+    /**
+     * @return id of the i-th in-edge of given node.
+     */
+    public int getInEdge(int node, int i) {
+        return inEdges[inStarts[node] + i];
+    }
+
+    public int getSourceOf(int edge) {
+        return edgeSources[edge];
+    }
+
+    public int getTargetOf(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public EdgeKind getKindOf(int edge) {
+        return KINDS[edgeKinds[edge]];
+    }
+
+    /**
+     * @return the {@link ICFGEdge} object of given edge.
+     */
+    public ICFGEdge<Stmt> getEdge(int edge) {
+        Stmt source = nodes[edgeSources[edge]];
+        Stmt target = nodes[edgeTargets[edge]];
+        return switch (getKindOf(edge)) {
+            case NORMAL -> new NormalEdge<>(cfgEdge(edge));
+            case CALL_TO_RETURN -> new CallToReturnEdge<>(cfgEdge(edge));
+            case CALL -> new CallEdge<>(source, target,
+                    methods[nodeMethods[edgeTargets[edge]]]);
+            case RETURN -> {
+                int callee = nodeMethods[edgeSources[edge]];
+                yield new ReturnEdge<>(source, target, (Stmt) edgeInfos[edge],
+                        returnVars.get(callee), exceptions.get(callee));
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private Edge<Stmt> cfgEdge(int edge) {
+        return (Edge<Stmt>) edgeInfos[edge];
+    }
+
+    // ---------- ICFG API ----------
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getInEdgesOf(Stmt stmt) {
+        int node = getId(stmt);
+        Set<ICFGEdge<Stmt>> edges = Sets.newHybridSet();
+        for (int i = inStarts[node]; i < inStarts[node + 1]; ++i) {
+            edges.add(getEdge(inEdges[i]));
+        }
+        return Collections.unmodifiableSet(edges);
+    }
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getOutEdgesOf(Stmt stmt) {
+        int node = getId(stmt);
+        Set<ICFGEdge<Stmt>> edges = Sets.newHybridSet();
+        for (int e = outStarts[node]; e < outStarts[node + 1]; ++e) {
+            edges.add(getEdge(e));
+        }
+        return Collections.unmodifiableSet(edges);
+    }
+
+    @Override
+    public Stmt getEntryOf(JMethod method) {
+        return nodes[entries[methodIds.get(method)]];
+    }
+
+    @Override
+    public Stmt getExitOf(JMethod method) {
+        return nodes[exits[methodIds.get(method)]];
+    }
+
+    @Override
+    public Set<Stmt> getReturnSitesOf(Stmt callSite) {
+        assert isCallSite(callSite);
+        int node = getId(callSite);
+        Set<Stmt> returnSites = Sets.newHybridSet();
+        for (int e = outStarts[node]; e < outStarts[node + 1]; ++e) {
+            if (edgeKinds[e] == EdgeKind.CALL_TO_RETURN.ordinal()) {
+                returnSites.add(nodes[edgeTargets[e]]);
+            }
+        }
+        return Collections.unmodifiableSet(returnSites);
+    }
+
+    @Override
+    public JMethod getContainingMethodOf(Stmt stmt) {
+        return methods[nodeMethods[getId(stmt)]];
+    }
+
+    @Override
+    public boolean isCallSite(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public boolean hasNode(Stmt stmt) {
+        return getId(stmt) != -1;
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        int s = getId(source), t = getId(target);
+        if (s != -1 && t != -1) {
+            for (int e = outStarts[s]; e < outStarts[s + 1]; ++e) {
+                if (edgeTargets[e] == t) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Set<Stmt> getPredsOf(Stmt stmt) {
+        int node = getId(stmt);
+        Set<Stmt> preds = Sets.newHybridSet();
+        for (int i = inStarts[node]; i < inStarts[node + 1]; ++i) {
+            preds.add(nodes[edgeSources[inEdges[i]]]);
+        }
+        return Collections.unmodifiableSet(preds);
+    }
+
+    @Override
+    public Set<Stmt> getSuccsOf(Stmt stmt) {
+        int node = getId(stmt);
+        Set<Stmt> succs = Sets.newHybridSet();
+        for (int e = outStarts[node]; e < outStarts[node + 1]; ++e) {
+            succs.add(nodes[edgeTargets[e]]);
+        }
+        return Collections.unmodifiableSet(succs);
+    }
+
+    @Override
+    public Set<Stmt> getNodes() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Stmt> iterator() {
+                return Arrays.asList(nodes).iterator();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o != null && idTable[findSlot(o)] != -1;
+            }
+
+            @Override
+            public int size() {
+                return nodes.length;
+            }
+        };
+    }
+
+    /**
+     * Growable buffer of edges used during building.
+     * As {@link ICFGEdge}s are compared by their kinds, sources and
+     * targets, the duplicate edges are dropped as the edge sets
+     * of the default ICFG do.
+     */
+    private static class EdgeBuffer {
+
+        private final int nNodes;
+
+        private final Set<Long> added = Sets.newSet();
+
+        private int size = 0;
+
+        private int[] sources = new int[16], targets = new int[16];
+
+        private byte[] kinds = new byte[16];
+
+        private Object[] infos = new Object[16];
+
+        private EdgeBuffer(int nNodes) {
+            this.nNodes = nNodes;
+        }
+
+        private void add(int source, int target, EdgeKind kind, Object info) {
+            long key = ((long) source * nNodes + target) * KINDS.length + kind.ordinal();
+            if (!added.add(key)) {
+                return;
+            }
+            if (size == sources.length) {
+                int capacity = size * 2;
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                kinds = Arrays.copyOf(kinds, capacity);
+                infos = Arrays.copyOf(infos, capacity);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            kinds[size] = (byte) kind.ordinal();
+            infos[size] = info;
+            ++size;
+        }
+
+        /**
+         * @return starts[i] is the position of the first edge whose
+         * given end is node i when the edges are sorted by that end,
+         * and starts[nNodes] is the number of edges.
+         */
+        private int[] starts(int[] ends) {
+            int[] starts = new int[nNodes + 1];
+            for (int e = 0; e < size; ++e) {
+                ++starts[ends[e] + 1];
+            }
+            for (int i = 0; i < nNodes; ++i) {
+                starts[i + 1] += starts[i];
+            }
+            return starts;
+        }
+
+        /**
+         * Counting sort of the edges by given ends.
+         *
+         * @return the ids of the edges in sorted order.
+         */
+        private int[] sort(int[] ends, int[] starts) {
+            int[] next = Arrays.copyOf(starts, nNodes);
+            int[] order = new int[size];
+            for (int e = 0; e < size; ++e) {
+                order[next[ends[e]]++] = e;
+            }
+            return order;
+        }
+    }
+}
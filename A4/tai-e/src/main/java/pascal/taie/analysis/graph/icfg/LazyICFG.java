@@ -0,0 +1,269 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.icfg;
+
+import pascal.taie.analysis.exception.ThrowAnalysis;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.Views;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ICFG which is built on demand.
+ * <p>
+ * A method is <i>loaded</i> when its CFG is built (if absent), which
+ * gives its entry and exit nodes, and it is <i>expanded</i> when the
+ * edges of its nodes are built, i.e., the edges of its CFG, and the
+ * call and return edges between its call sites and the callees (which
+ * are loaded, but not expanded). A method is expanded the first time
+ * its nodes are queried, e.g., when the solver reaches its entry node
+ * via a call edge, thus the methods which are never reached by the
+ * solver are never expanded, and their CFGs are never built unless they
+ * are called by expanded methods.
+ * <p>
+ * {@link #getNodes()} only contains the nodes of expanded methods, and
+ * the edges between expanded and unexpanded methods only appear on the
+ * expanded side until the other side is also expanded. Hence, clients
+ * should discover the nodes by traversing the edges from the entries
+ * of entry methods, instead of iterating {@link #getNodes()} up front.
+ * This class is not thread-safe.
+ */
+public class LazyICFG extends AbstractICFG<JMethod, Stmt> {
+
+    private final ThrowAnalysis throwAnalysis;
+
+    private final CFGBuilder cfgBuilder;
+
+    /**
+     * CFGs of the loaded methods.
+     */
+    private final Map<JMethod, CFG<Stmt>> cfgs = Maps.newMap();
+
+    /**
+     * Map from each node of the loaded methods to its containing method.
+     */
+    private final Map<Stmt, JMethod> methods = Maps.newMap();
+
+    /**
+     * Return variables and thrown exceptions of the loaded methods,
+     * which are carried by return edges.
+     */
+    private final Map<JMethod, Set<Var>> returnVars = Maps.newMap();
+
+    private final Map<JMethod, Set<ClassType>> exceptions = Maps.newMap();
+
+    private final Set<JMethod> expanded = Sets.newSet();
+
+    /**
+     * Nodes of the expanded methods.
+     */
+    private final Set<Stmt> nodes = new LinkedHashSet<>();
+
+    private final MultiMap<Stmt, ICFGEdge<Stmt>> inEdges = Maps.newMultiMap();
+
+    private final MultiMap<Stmt, ICFGEdge<Stmt>> outEdges = Maps.newMultiMap();
+
+    public LazyICFG(CallGraph<Stmt, JMethod> callGraph) {
+        super(callGraph);
+        throwAnalysis = new ThrowAnalysis(new AnalysisConfig(ThrowAnalysis.ID,
+                "exception", "explicit", "algorithm", "intra"));
+        cfgBuilder = new CFGBuilder(new AnalysisConfig(CFGBuilder.ID,
+                "exception", "explicit", "dump", false));
+    }
+
+    /**
+     * @return the number of methods whose CFGs have been loaded.
+     */
+    public int getNumberOfLoadedMethods() {
+        return cfgs.size();
+    }
+
+    /**
+     * @return the number of methods which have been expanded.
+     */
+    public int getNumberOfExpandedMethods() {
+        return expanded.size();
+    }
+
+    /**
+     * @return the CFG of given method. If {@link CFGBuilder} has not been
+     * run on the method, then builds the CFG and stores it in the IR.
+     */
+    private CFG<Stmt> load(JMethod method) {
+        CFG<Stmt> cfg = cfgs.get(method);
+        if (cfg == null) {
+            IR ir = method.getIR();
+            cfg = ir.getResult(CFGBuilder.ID);
+            if (cfg == null) {
+                if (ir.getResult(ThrowAnalysis.ID) == null) {
+                    ir.storeResult(ThrowAnalysis.ID, throwAnalysis.analyze(ir));
+                }
+                cfg = cfgBuilder.analyze(ir);
+                ir.storeResult(CFGBuilder.ID, cfg);
+            }
+            cfgs.put(method, cfg);
+            for (Stmt stmt : cfg) {
+                methods.put(stmt, method);
+            }
+            Set<Var> retVars = Sets.newHybridSet();
+            Set<ClassType> thrown = Sets.newHybridSet();
+            cfg.getInEdgesOf(cfg.getExit()).forEach(edge -> {
+                if (edge.getKind() == Edge.Kind.RETURN &&
+                        ((Return) edge.getSource()).getValue() != null) {
+                    retVars.add(((Return) edge.getSource()).getValue());
+                }
+                if (edge.isExceptional()) {
+                    thrown.addAll(edge.getExceptions());
+                }
+            });
+            returnVars.put(method, Collections.unmodifiableSet(retVars));
+            exceptions.put(method, Collections.unmodifiableSet(thrown));
+        }
+        return cfg;
+    }
+
+    /**
+     * Builds the edges of the nodes of given method.
+     */
+    private void expand(JMethod method) {
+        if (!expanded.add(method)) {
+            return;
+        }
+        CFG<Stmt> cfg = load(method);
+        for (Stmt stmt : cfg) {
+            nodes.add(stmt);
+            boolean isCallSite = isCallSite(stmt);
+            cfg.getOutEdgesOf(stmt).forEach(edge -> addEdge(isCallSite ?
+                    new CallToReturnEdge<>(edge) : new NormalEdge<>(edge)));
+            if (isCallSite) {
+                for (JMethod callee : getCalleesOf(stmt)) {
+                    CFG<Stmt> calleeCFG = load(callee);
+                    addEdge(new CallEdge<>(stmt, calleeCFG.getEntry(), callee));
+                    for (Stmt returnSite : cfg.getSuccsOf(stmt)) {
+                        addEdge(new ReturnEdge<>(calleeCFG.getExit(), returnSite,
+                                stmt, returnVars.get(callee), exceptions.get(callee)));
+                    }
+                }
+            }
+        }
+    }
+
+    private void addEdge(ICFGEdge<Stmt> edge) {
+        outEdges.put(edge.getSource(), edge);
+        inEdges.put(edge.getTarget(), edge);
+    }
+
+    /**
+     * Expands the method containing given node.
+     */
+    private void expandMethodOf(Stmt stmt) {
+        expand(getContainingMethodOf(stmt));
+    }
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getInEdgesOf(Stmt stmt) {
+        expandMethodOf(stmt);
+        return Collections.unmodifiableSet(inEdges.get(stmt));
+    }
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getOutEdgesOf(Stmt stmt) {
+        expandMethodOf(stmt);
+        return Collections.unmodifiableSet(outEdges.get(stmt));
+    }
+
+    @Override
+    public Stmt getEntryOf(JMethod method) {
+        return load(method).getEntry();
+    }
+
+    @Override
+    public Stmt getExitOf(JMethod method) {
+        return load(method).getExit();
+    }
+
+    @Override
+    public Set<Stmt> getReturnSitesOf(Stmt callSite) {
+        assert isCallSite(callSite);
+        return cfgs.get(getContainingMethodOf(callSite)).getSuccsOf(callSite);
+    }
+
+    @Override
+    public JMethod getContainingMethodOf(Stmt stmt) {
+        JMethod method = methods.get(stmt);
+        if (method == null) {
+            // the method has not been loaded, which is only possible
+            // for the call sites that call loaded methods
+            method = callGraph.getContainerOf(stmt);
+            load(method);
+        }
+        return method;
+    }
+
+    @Override
+    public boolean isCallSite(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public boolean hasNode(Stmt stmt) {
+        return nodes.contains(stmt);
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        return getSuccsOf(source).contains(target);
+    }
+
+    @Override
+    public Set<Stmt> getPredsOf(Stmt stmt) {
+        return Views.toMappedSet(getInEdgesOf(stmt), ICFGEdge::getSource);
+    }
+
+    @Override
+    public Set<Stmt> getSuccsOf(Stmt stmt) {
+        return Views.toMappedSet(getOutEdgesOf(stmt), ICFGEdge::getTarget);
+    }
+
+    @Override
+    public Set<Stmt> getNodes() {
+        return Collections.unmodifiableSet(nodes);
+    }
+}
@@ -25,6 +25,7 @@ package pascal.taie.ir.exp;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.LoadArray;
 import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.StoreArray;
 import pascal.taie.ir.stmt.StoreField;
 import pascal.taie.language.classes.JMethod;
@@ -36,6 +37,7 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Representation of method/constructor parameters, lambda parameters,
@@ -186,6 +188,16 @@ public class Var implements LValue, RValue, Indexable {
         return relevantStmts.getInvokes();
     }
 
+    /**
+     * Removes given statements from the relevant statements of this variable,
+     * e.g., when the statements are eliminated from the IR.
+     */
+    public void removeRelevantStmts(Set<? extends Stmt> stmts) {
+        if (relevantStmts != RelevantStmts.EMPTY) {
+            relevantStmts.removeAll(stmts);
+        }
+    }
+
     /**
      * Ensure {@link #relevantStmts} points to an instance other than
      * {@link RelevantStmts#EMPTY}.
@@ -278,6 +290,23 @@ public class Var implements LValue, RValue, Indexable {
             invokes.add(invoke);
         }
 
+        private void removeAll(Set<? extends Stmt> stmts) {
+            loadFields = removeAll(loadFields, stmts);
+            storeFields = removeAll(storeFields, stmts);
+            loadArrays = removeAll(loadArrays, stmts);
+            storeArrays = removeAll(storeArrays, stmts);
+            invokes = removeAll(invokes, stmts);
+        }
+
+        private static <T extends Stmt> List<T> removeAll(
+                List<T> list, Set<? extends Stmt> stmts) {
+            if (!list.isEmpty()) {
+                list.removeIf(stmts::contains);
+            }
+            // keep the contract of the empty lists
+            return list.isEmpty() ? List.of() : list;
+        }
+
         private static <T> List<T> unmodifiable(List<T> list) {
             return list.isEmpty() ? list : Collections.unmodifiableList(list);
         }
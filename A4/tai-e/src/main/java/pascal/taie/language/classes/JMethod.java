@@ -163,6 +163,14 @@ public class JMethod extends ClassMember {
         return ir;
     }
 
+    /**
+     * Replaces the IR of this method, e.g., by the IR pruned by dead code
+     * elimination, so that the analyses run afterwards see the new IR.
+     */
+    public void setIR(IR ir) {
+        this.ir = ir;
+    }
+
     /**
      * @return the {@link MethodRef} pointing to this method.
      */
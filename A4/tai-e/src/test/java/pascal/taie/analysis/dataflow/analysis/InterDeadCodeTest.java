@@ -0,0 +1,180 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.inter.DeadCodeElimination;
+import pascal.taie.analysis.dataflow.inter.InterConstantPropagation;
+import pascal.taie.analysis.dataflow.inter.InterDeadCodeDetection;
+import pascal.taie.analysis.dataflow.inter.InterDeadCodeResult;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class InterDeadCodeTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/deadcode/inter";
+
+    InterDeadCodeResult analyze(String inputClass, String... args) {
+        return analyzeWithOptions(inputClass, "", args);
+    }
+
+    /**
+     * @param cpOptions additional options of inter-constprop
+     */
+    InterDeadCodeResult analyzeWithOptions(
+            String inputClass, String cpOptions, String... args) {
+        List<String> mainArgs = new ArrayList<>(List.of(
+                "-pp", "-cp", CLASS_PATH, "-m", inputClass,
+                "-a", InterConstantPropagation.ID +
+                        "=edge-refine:false;alias-aware:false" + cpOptions,
+                "-a", InterDeadCodeDetection.ID,
+                "-a", "cg=algorithm:cha"));
+        Collections.addAll(mainArgs, args);
+        Main.main(mainArgs.toArray(new String[0]));
+        return World.get().getResult(InterDeadCodeDetection.ID);
+    }
+
+    @Test
+    public void testDeadBranch() {
+        InterDeadCodeResult result = analyze("DeadBranch");
+        // dead() is only called by the dead branch of check(),
+        // and deadToo() is only called by dead()
+        Assert.assertEquals(Set.of("dead", "deadToo"),
+                result.getDeadMethods()
+                        .stream()
+                        .map(JMethod::getName)
+                        .collect(Collectors.toSet()));
+        JMethod check = World.get().getClassHierarchy()
+                .getClass("DeadBranch").getDeclaredMethod("check");
+        Assert.assertTrue(check.getIR().stmts().anyMatch(stmt ->
+                stmt instanceof If && result.getConstantBranches().contains(stmt)));
+        Assert.assertTrue(result.getDeadCode(check).stream().anyMatch(stmt ->
+                stmt instanceof Invoke invoke &&
+                        invoke.getMethodRef().getName().equals("dead")));
+        Assert.assertTrue(result.getDeadCode(check).stream().noneMatch(stmt ->
+                stmt instanceof Invoke invoke &&
+                        invoke.getMethodRef().getName().equals("live")));
+    }
+
+    @Test
+    public void testNestedDeadBranch() {
+        checkNestedDeadBranch(analyze("NestedDeadBranch"));
+    }
+
+    @Test
+    public void testNestedDeadBranchWithCompactICFG() {
+        // constant propagation is solved again on the compact ICFG
+        checkNestedDeadBranch(analyzeWithOptions(
+                "NestedDeadBranch", ";icfg:compact"));
+    }
+
+    @Test
+    public void testNestedDeadBranchWithSummary() {
+        checkNestedDeadBranch(analyzeWithOptions(
+                "NestedDeadBranch", ";summary:true"));
+    }
+
+    private static void checkNestedDeadBranch(InterDeadCodeResult result) {
+        // second(2) is called by the dead branch of first(), thus
+        // parameter flag of second() is constant only after the dead call
+        // is dropped, which makes the else branch of second() dead
+        Assert.assertEquals(Set.of("dead"),
+                result.getDeadMethods()
+                        .stream()
+                        .map(JMethod::getName)
+                        .collect(Collectors.toSet()));
+        JMethod second = World.get().getClassHierarchy()
+                .getClass("NestedDeadBranch").getDeclaredMethod("second");
+        Assert.assertTrue(second.getIR().stmts().anyMatch(stmt ->
+                stmt instanceof If && result.getConstantBranches().contains(stmt)));
+        Assert.assertTrue(result.getDeadCode(second).stream().anyMatch(stmt ->
+                stmt instanceof Invoke invoke &&
+                        invoke.getMethodRef().getName().equals("dead")));
+    }
+
+    @Test
+    public void testDeadBranchElimination() {
+        analyze("DeadBranch", "-a", DeadCodeElimination.ID);
+        JMethod check = World.get().getClassHierarchy()
+                .getClass("DeadBranch").getDeclaredMethod("check");
+        IR ir = check.getIR();
+        Set<JMethod> pruned = World.get().getResult(DeadCodeElimination.ID);
+        Assert.assertTrue(pruned.contains(check));
+        // the constant branch and the dead call are eliminated
+        Assert.assertTrue(ir.stmts().noneMatch(stmt -> stmt instanceof If ||
+                stmt instanceof Invoke invoke &&
+                        invoke.getMethodRef().getName().equals("dead")));
+        for (int i = 0; i < ir.getStmts().size(); ++i) {
+            Assert.assertEquals(i, ir.getStmt(i).getIndex());
+        }
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        Assert.assertTrue(cfg.getIR() == ir);
+        // the dead methods are removed from the call graph
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        Assert.assertEquals(Set.of("main", "check", "live"),
+                callGraph.reachableMethods()
+                        .map(JMethod::getName)
+                        .collect(Collectors.toSet()));
+        ICFG<JMethod, Stmt> icfg = World.get().getResult(ICFGBuilder.ID);
+        ir.forEach(stmt -> Assert.assertTrue(stmt.toString(), icfg.hasNode(stmt)));
+    }
+
+    @Test
+    public void testDeadCallElimination() {
+        InterDeadCodeResult result = analyze("DeadReceiverCall",
+                "-a", DeadCodeElimination.ID);
+        JMethod use = World.get().getClassHierarchy()
+                .getClass("DeadReceiverCall").getDeclaredMethod("use");
+        IR ir = use.getIR();
+        // the live calls are moved to the indexes of the dead calls,
+        // which must not affect the dead code and the relevant
+        // statements of the variables used by pointer analysis
+        ir.forEach(stmt -> Assert.assertFalse(stmt.toString(),
+                result.getDeadCode(use).contains(stmt)));
+        Var box = ir.getParam(0);
+        Assert.assertEquals(2, box.getInvokes().size());
+        box.getInvokes().forEach(invoke -> {
+            Assert.assertEquals("live", invoke.getMethodRef().getName());
+            Assert.assertSame(invoke, ir.getStmt(invoke.getIndex()));
+        });
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.inter.InterLiveVariableAnalysis;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGBuilder;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class InterLiveVarTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/inter";
+
+    /**
+     * @return the IN facts of all ICFG nodes computed by inter-procedural
+     * live variable analysis with given schedule.
+     */
+    Map<Stmt, SetFact<Var>> analyze(String inputClass, String schedule) {
+        Main.main(new String[]{
+                "-pp", "-cp", CLASS_PATH, "-m", inputClass,
+                "-a", InterLiveVariableAnalysis.ID + "=schedule:" + schedule,
+                "-a", "cg=algorithm:cha"});
+        DataflowResult<Stmt, SetFact<Var>> result =
+                World.get().getResult(InterLiveVariableAnalysis.ID);
+        ICFG<JMethod, Stmt> icfg = World.get().getResult(ICFGBuilder.ID);
+        return icfg.getNodes()
+                .stream()
+                .collect(Collectors.toMap(stmt -> stmt, result::getInFact));
+    }
+
+    void testSchedules(String inputClass) {
+        Map<String, String> expected = toString(analyze(inputClass, "nodes"));
+        for (String schedule : new String[]{"rpo", "scc", "parallel"}) {
+            Assert.assertEquals(schedule, expected,
+                    toString(analyze(inputClass, schedule)));
+        }
+    }
+
+    /**
+     * Converts given facts to strings, so that the facts of different runs
+     * (which have different IR objects) can be compared.
+     */
+    private static Map<String, String> toString(Map<Stmt, SetFact<Var>> facts) {
+        ICFG<JMethod, Stmt> icfg = World.get().getResult(ICFGBuilder.ID);
+        return facts.entrySet()
+                .stream()
+                .collect(Collectors.toMap(
+                        e -> toString(icfg, e.getKey()),
+                        e -> e.getValue().stream()
+                                .map(Var::getName)
+                                .sorted()
+                                .toList()
+                                .toString()));
+    }
+
+    private static String toString(ICFG<JMethod, Stmt> icfg, Stmt stmt) {
+        JMethod method = icfg.getContainingMethodOf(stmt);
+        if (stmt == icfg.getEntryOf(method)) {
+            return method + "#entry";
+        } else if (stmt == icfg.getExitOf(method)) {
+            return method + "#exit";
+        } else {
+            return method + "#" + stmt.getIndex() + ":" + stmt;
+        }
+    }
+
+    @Test
+    public void testMultiIntArgs() {
+        Map<Stmt, SetFact<Var>> facts = analyze("MultiIntArgs", "nodes");
+        facts.forEach((stmt, in) -> {
+            if (stmt instanceof Return ret && ret.getValue() != null) {
+                // results of all calls in main() are unused
+                Assert.assertFalse(stmt.toString(), in.contains(ret.getValue()));
+            } else if (!(stmt instanceof Invoke)) {
+                stmt.getUses().forEach(use -> {
+                    if (use instanceof Var v) {
+                        Assert.assertTrue(stmt + ": " + v, in.contains(v));
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    public void testFibonacciSchedules() {
+        testSchedules("Fibonacci");
+    }
+}
@@ -22,9 +22,24 @@
 
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.inter.CPQueryEngine;
 import pascal.taie.analysis.dataflow.inter.InterConstantPropagation;
+import pascal.taie.analysis.dataflow.inter.InterLiveVariableAnalysis;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGBuilder;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Map;
+import java.util.TreeMap;
 
 public class InterCPTest {
 
@@ -38,6 +53,92 @@ public class InterCPTest {
         );
     }
 
+    void testWithSchedule(String inputClass, String schedule) {
+        Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false;schedule:" + schedule,
+                "-a", "cg=algorithm:cha");
+    }
+
+    void testWithCompactICFG(String inputClass) {
+        Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false;icfg:compact",
+                "-a", "cg=algorithm:cha");
+    }
+
+    void testWithLazyICFG(String inputClass) {
+        Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false;icfg:lazy",
+                "-a", "cg=algorithm:cha");
+    }
+
+    /**
+     * Solves the analysis by method summaries. The results are the same
+     * as those of the ICFG-based solving if every method is analyzed
+     * in a single context (or all of its contexts are merged to NAC),
+     * and more precise otherwise.
+     */
+    void testWithSummary(String inputClass) {
+        Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false;summary:true",
+                "-a", "cg=algorithm:cha");
+    }
+
+    /**
+     * Checks that the demand-driven queries agree with the facts
+     * computed by the whole-program analysis.
+     */
+    void testQuery(String inputClass) {
+        test(inputClass);
+        DataflowResult<Stmt, CPFact> result =
+                World.get().getResult(InterConstantPropagation.ID);
+        ICFG<JMethod, Stmt> icfg = World.get().getResult(ICFGBuilder.ID);
+        CPQueryEngine engine = new CPQueryEngine(icfg);
+        for (Stmt stmt : icfg) {
+            for (Var var : icfg.getContainingMethodOf(stmt).getIR().getVars()) {
+                Assert.assertEquals(stmt + ": " + var,
+                        result.getInFact(stmt).get(var), engine.query(stmt, var));
+            }
+        }
+    }
+
+    /**
+     * Checks that pruning the facts by liveness does not change
+     * the values of live variables.
+     */
+    void testPruning(String inputClass) {
+        Assert.assertEquals(liveValues(inputClass, false),
+                liveValues(inputClass, true));
+    }
+
+    /**
+     * @return the values of the live variables before each ICFG node,
+     * keyed by the printed forms of the nodes and variables, so that
+     * the results of different runs can be compared.
+     */
+    private static Map<String, Value> liveValues(String inputClass, boolean prune) {
+        Main.main(new String[]{
+                "-pp", "-cp", CLASS_PATH, "-m", inputClass,
+                "-a", InterConstantPropagation.ID +
+                "=edge-refine:false;alias-aware:false;prune:" + prune,
+                "-a", InterLiveVariableAnalysis.ID,
+                "-a", "cg=algorithm:cha"});
+        DataflowResult<Stmt, CPFact> result =
+                World.get().getResult(InterConstantPropagation.ID);
+        DataflowResult<Stmt, SetFact<Var>> liveVars =
+                World.get().getResult(InterLiveVariableAnalysis.ID);
+        ICFG<JMethod, Stmt> icfg = World.get().getResult(ICFGBuilder.ID);
+        Map<String, Value> values = new TreeMap<>();
+        for (Stmt stmt : icfg) {
+            JMethod method = icfg.getContainingMethodOf(stmt);
+            String node = method + (stmt == icfg.getEntryOf(method) ? "#entry"
+                    : stmt == icfg.getExitOf(method) ? "#exit"
+                    : "#" + stmt.getIndex());
+            liveVars.getInFact(stmt).stream().forEach(var -> values.put(
+                    node + "/" + var, result.getInFact(stmt).get(var)));
+        }
+        return values;
+    }
+
     @Test
     public void testExample() {
         test("Example");
@@ -57,4 +158,98 @@ public class InterCPTest {
     public void testMultiIntArgs() {
         test("MultiIntArgs");
     }
+
+    @Test
+    public void testFibonacciWithSCCSchedule() {
+        testWithSchedule("Fibonacci", "scc");
+    }
+
+    @Test
+    public void testMultiIntArgsWithSCCSchedule() {
+        testWithSchedule("MultiIntArgs", "scc");
+    }
+
+    @Test
+    public void testExampleWithRPOSchedule() {
+        testWithSchedule("Example", "rpo");
+    }
+
+    @Test
+    public void testFibonacciWithRPOSchedule() {
+        testWithSchedule("Fibonacci", "rpo");
+    }
+
+    @Test
+    public void testFibonacciWithParallelSchedule() {
+        testWithSchedule("Fibonacci", "parallel");
+    }
+
+    @Test
+    public void testMultiIntArgsWithParallelSchedule() {
+        testWithSchedule("MultiIntArgs", "parallel");
+    }
+
+    @Test
+    public void testExampleWithCompactICFG() {
+        testWithCompactICFG("Example");
+    }
+
+    @Test
+    public void testReferenceWithCompactICFG() {
+        testWithCompactICFG("Reference");
+    }
+
+    @Test
+    public void testExampleWithLazyICFG() {
+        testWithLazyICFG("Example");
+    }
+
+    @Test
+    public void testFibonacciWithLazyICFG() {
+        testWithLazyICFG("Fibonacci");
+    }
+
+    @Test
+    public void testReferenceWithPruning() {
+        testPruning("Reference");
+    }
+
+    @Test
+    public void testMultiIntArgsWithPruning() {
+        testPruning("MultiIntArgs");
+    }
+
+    @Test
+    public void testFibonacciQuery() {
+        testQuery("Fibonacci");
+    }
+
+    @Test
+    public void testMultiIntArgsQuery() {
+        testQuery("MultiIntArgs");
+    }
+
+    @Test
+    public void testExampleWithSummary() {
+        testWithSummary("Example");
+    }
+
+    @Test
+    public void testReferenceWithSummary() {
+        testWithSummary("Reference");
+    }
+
+    @Test
+    public void testFibonacciWithSummary() {
+        // recursive calls with ever-changing constants,
+        // which exceed the bound of contexts
+        testWithSummary("Fibonacci");
+    }
+
+    @Test
+    public void testMultiContextsWithSummary() {
+        // foo() is called with (2, 3) and (4, 5), so z and t are
+        // constants, while the ICFG-based solving merges them to NAC
+        testWithSummary("MultiContexts");
+    }
 }
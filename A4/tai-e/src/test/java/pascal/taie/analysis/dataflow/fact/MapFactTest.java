@@ -0,0 +1,172 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class MapFactTest {
+
+    private static Map<Integer, Integer> toMap(MapFact<Integer, Integer> fact) {
+        return fact.entries().collect(
+                Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    /**
+     * Performs random updates, removals, copies and copyFrom on facts,
+     * and checks them against plain maps.
+     */
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(0);
+        List<MapFact<Integer, Integer>> facts = new ArrayList<>();
+        List<Map<Integer, Integer>> maps = new ArrayList<>();
+        facts.add(new MapFact<>(Map.of()));
+        maps.add(new HashMap<>());
+        for (int i = 0; i < 20000; ++i) {
+            int n = random.nextInt(facts.size());
+            MapFact<Integer, Integer> fact = facts.get(n);
+            Map<Integer, Integer> map = maps.get(n);
+            int key = random.nextInt(50);
+            switch (random.nextInt(5)) {
+                case 0, 1 -> {
+                    int value = random.nextInt(3);
+                    Assert.assertEquals(!Integer.valueOf(value).equals(map.get(key)),
+                            fact.update(key, value));
+                    map.put(key, value);
+                }
+                case 2 -> Assert.assertEquals(map.remove(key), fact.remove(key));
+                case 3 -> {
+                    if (facts.size() < 20) {
+                        facts.add(fact.copy());
+                        maps.add(new HashMap<>(map));
+                    }
+                }
+                default -> {
+                    int m = random.nextInt(facts.size());
+                    Map<Integer, Integer> expected = new HashMap<>(map);
+                    expected.putAll(maps.get(m));
+                    Assert.assertEquals(!expected.equals(map),
+                            fact.copyFrom(facts.get(m)));
+                    map.putAll(maps.get(m));
+                }
+            }
+            Assert.assertEquals(map, toMap(fact));
+            Assert.assertEquals(map.keySet(), fact.keySet());
+            Assert.assertEquals(map.hashCode(), fact.hashCode());
+        }
+        for (int i = 0; i < facts.size(); ++i) {
+            for (int j = 0; j < facts.size(); ++j) {
+                Assert.assertEquals(maps.get(i).equals(maps.get(j)),
+                        facts.get(i).equals(facts.get(j)));
+            }
+        }
+    }
+
+    /**
+     * Reading a fact must not change it or the facts sharing its base.
+     */
+    @Test
+    public void testReadDoesNotAffectCopies() {
+        MapFact<Integer, Integer> fact = new MapFact<>(Map.of(0, 0, 1, 1));
+        MapFact<Integer, Integer> copy = fact.copy();
+        copy.update(2, 2);
+        copy.remove(0);
+        copy.keySet();
+        copy.entries().count();
+        Assert.assertNotEquals(fact, copy);
+        fact.update(3, 3);
+        Assert.assertEquals(Map.of(0, 0, 1, 1, 3, 3), toMap(fact));
+        Assert.assertEquals(Map.of(1, 1, 2, 2), toMap(copy));
+    }
+
+    /**
+     * Copying a fact does not modify it, thus it can be copied
+     * by multiple threads, and the copies can be updated independently.
+     */
+    @Test
+    public void testConcurrentCopies() throws InterruptedException {
+        MapFact<Integer, Integer> fact = new MapFact<>(Map.of());
+        for (int i = 0; i < 100; ++i) {
+            fact.update(i, i);
+        }
+        Map<Integer, Integer> expected = toMap(fact);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < 4; ++t) {
+            int id = t;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 1000; ++i) {
+                        MapFact<Integer, Integer> copy = fact.copy();
+                        copy.update(i % 100, -id - 1);
+                        Assert.assertEquals(Integer.valueOf(-id - 1), copy.get(i % 100));
+                        Assert.assertEquals(expected, toMap(fact));
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(List.of(), errors);
+    }
+
+    /**
+     * Many updates of a fact (with copies in between, as a solver does)
+     * take linear time, i.e., each update does not copy the whole fact.
+     */
+    @Test(timeout = 10000)
+    public void testManyUpdates() {
+        int n = 200_000;
+        MapFact<Integer, Integer> fact = new MapFact<>(Map.of());
+        MapFact<Integer, Integer> copy = fact.copy();
+        for (int i = 0; i < n; ++i) {
+            fact.update(i, i);
+            if (i % 1000 == 0) {
+                // copying and comparing facts with different bases
+                copy = fact.copy();
+                copy.update(-1, i);
+                Assert.assertFalse(fact.equals(copy));
+            }
+        }
+        MapFact<Integer, Integer> other = new MapFact<>(Map.of());
+        for (int i = 0; i < 10; ++i) {
+            Assert.assertEquals(i == 0, other.copyFrom(fact));
+        }
+        Assert.assertEquals(fact, other);
+        Assert.assertEquals(n, fact.keySet().size());
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.dataflow.inter;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.SimpleICFG;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+
+public class InterSolverTest {
+
+    /**
+     * main calls f before a loop and in the loop, and f has a loop.
+     */
+    private static SimpleICFG makeICFG() {
+        SimpleICFG icfg = new SimpleICFG("main");
+        icfg.addEdge("main/entry", "main/c1");
+        icfg.addCall("main/c1", "main/r1", "f");
+        icfg.addEdge("main/r1", "main/head");
+        icfg.addEdge("main/head", "main/c2");
+        icfg.addCall("main/c2", "main/r2", "f");
+        icfg.addEdge("main/r2", "main/head");
+        icfg.addEdge("main/head", "main/exit");
+        icfg.addEdge("f/entry", "f/a");
+        icfg.addEdge("f/a", "f/b");
+        icfg.addEdge("f/b", "f/a");
+        icfg.addEdge("f/b", "f/exit");
+        return icfg;
+    }
+
+    void testEdgeCache(String schedule) {
+        SimpleICFG icfg = makeICFG();
+        PrecedingNodes analysis = new PrecedingNodes();
+        InterSolver<String, String, SetFact<String>> solver =
+                new InterSolver<>(analysis, icfg, schedule);
+        DataflowResult<String, SetFact<String>> result = solver.solve();
+        for (String node : icfg) {
+            Assert.assertEquals("IN of " + node,
+                    precedingNodes(icfg, node), result.getInFact(node));
+        }
+        // each visit of an in-edge is either a hit or a miss
+        long visits = 0;
+        // an edge is transferred for the first time, and once
+        // after each change of the fact of its source
+        long maxTransfers = 0;
+        for (String node : icfg) {
+            visits += (long) analysis.transfers.getOrDefault(node, 0) *
+                    icfg.getInDegreeOf(node);
+            maxTransfers += (1L + analysis.changes.getOrDefault(node, 0)) *
+                    icfg.getOutDegreeOf(node);
+        }
+        Assert.assertEquals(visits,
+                solver.getEdgeCacheHits() + solver.getEdgeCacheMisses());
+        Assert.assertEquals(analysis.edgeTransfers, solver.getEdgeCacheMisses());
+        Assert.assertTrue(solver.getEdgeCacheMisses() <= maxTransfers);
+        // the loops revisit the nodes whose in-edges are unchanged
+        Assert.assertTrue(solver.getEdgeCacheHits() > 0);
+    }
+
+    @Test
+    public void testEdgeCache() {
+        testEdgeCache("nodes");
+    }
+
+    @Test
+    public void testEdgeCacheWithRPOSchedule() {
+        testEdgeCache("rpo");
+    }
+
+    @Test
+    public void testEdgeCacheWithSCCSchedule() {
+        testEdgeCache("scc");
+    }
+
+    private static SetFact<String> precedingNodes(SimpleICFG icfg, String node) {
+        SetFact<String> nodes = new SetFact<>();
+        Queue<String> queue = new ArrayDeque<>(icfg.getPredsOf(node));
+        while (!queue.isEmpty()) {
+            String pred = queue.poll();
+            if (nodes.add(pred)) {
+                queue.addAll(icfg.getPredsOf(pred));
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Computes the nodes which can flow to each node, and counts
+     * the transfers.
+     */
+    private static class PrecedingNodes
+            implements InterDataflowAnalysis<String, SetFact<String>> {
+
+        private final Map<String, Integer> transfers = Maps.newMap();
+
+        private final Map<String, Integer> changes = Maps.newMap();
+
+        private long edgeTransfers = 0;
+
+        @Override
+        public boolean isForward() {
+            return true;
+        }
+
+        @Override
+        public SetFact<String> newBoundaryFact(String boundary) {
+            return new SetFact<>();
+        }
+
+        @Override
+        public SetFact<String> newInitialFact() {
+            return new SetFact<>();
+        }
+
+        @Override
+        public void meetInto(SetFact<String> fact, SetFact<String> target) {
+            target.union(fact);
+        }
+
+        @Override
+        public boolean transferNode(String node, SetFact<String> in,
+                                    SetFact<String> out) {
+            transfers.merge(node, 1, Integer::sum);
+            SetFact<String> newOut = in.copy();
+            newOut.add(node);
+            if (!newOut.equals(out)) {
+                out.set(newOut);
+                changes.merge(node, 1, Integer::sum);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public SetFact<String> transferEdge(ICFGEdge<String> edge, SetFact<String> out) {
+            ++edgeTransfers;
+            return out;
+        }
+    }
+}
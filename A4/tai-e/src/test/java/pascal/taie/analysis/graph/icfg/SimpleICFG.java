@@ -0,0 +1,167 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.graph.icfg;
+
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.Views;
+
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * ICFG of string nodes for testing the solvers without building
+ * the world. Node "m/x" belongs to method "m", and "m/entry" and
+ * "m/exit" are the entry and exit of method "m".
+ */
+public class SimpleICFG implements ICFG<String, String> {
+
+    private final String entryMethod;
+
+    private final Set<String> nodes = Sets.newHybridOrderedSet();
+
+    private final MultiMap<String, ICFGEdge<String>> inEdges = Maps.newMultiMap();
+
+    private final MultiMap<String, ICFGEdge<String>> outEdges = Maps.newMultiMap();
+
+    private final MultiMap<String, String> callees = Maps.newMultiMap();
+
+    private final MultiMap<String, String> returnSites = Maps.newMultiMap();
+
+    public SimpleICFG(String entryMethod) {
+        this.entryMethod = entryMethod;
+    }
+
+    /**
+     * Adds an intra-procedural edge.
+     */
+    public void addEdge(String source, String target) {
+        addEdge(new LocalEdge(source, target));
+    }
+
+    /**
+     * Adds a call from given call site to given method, i.e., the call,
+     * return and call-to-return edges.
+     */
+    public void addCall(String callSite, String returnSite, String callee) {
+        callees.put(callSite, callee);
+        returnSites.put(callSite, returnSite);
+        addEdge(new LocalEdge(callSite, returnSite));
+        addEdge(new CallEdge<>(callSite, getEntryOf(callee), null));
+        addEdge(new ReturnEdge<>(getExitOf(callee), returnSite, callSite,
+                Set.of(), Set.of()));
+    }
+
+    private void addEdge(ICFGEdge<String> edge) {
+        nodes.add(edge.getSource());
+        nodes.add(edge.getTarget());
+        outEdges.put(edge.getSource(), edge);
+        inEdges.put(edge.getTarget(), edge);
+    }
+
+    @Override
+    public Stream<String> entryMethods() {
+        return Stream.of(entryMethod);
+    }
+
+    @Override
+    public Set<ICFGEdge<String>> getInEdgesOf(String node) {
+        return inEdges.get(node);
+    }
+
+    @Override
+    public Set<ICFGEdge<String>> getOutEdgesOf(String node) {
+        return outEdges.get(node);
+    }
+
+    @Override
+    public Set<String> getCalleesOf(String callSite) {
+        return callees.get(callSite);
+    }
+
+    @Override
+    public Set<String> getReturnSitesOf(String callSite) {
+        return returnSites.get(callSite);
+    }
+
+    @Override
+    public String getEntryOf(String method) {
+        return method + "/entry";
+    }
+
+    @Override
+    public String getExitOf(String method) {
+        return method + "/exit";
+    }
+
+    @Override
+    public Set<String> getCallersOf(String method) {
+        return Views.toMappedSet(getInEdgesOf(getEntryOf(method)), ICFGEdge::getSource);
+    }
+
+    @Override
+    public String getContainingMethodOf(String node) {
+        return node.substring(0, node.indexOf('/'));
+    }
+
+    @Override
+    public boolean isCallSite(String node) {
+        return callees.containsKey(node);
+    }
+
+    @Override
+    public boolean hasNode(String node) {
+        return nodes.contains(node);
+    }
+
+    @Override
+    public boolean hasEdge(String source, String target) {
+        return getSuccsOf(source).contains(target);
+    }
+
+    @Override
+    public Set<String> getPredsOf(String node) {
+        return Views.toMappedSet(getInEdgesOf(node), ICFGEdge::getSource);
+    }
+
+    @Override
+    public Set<String> getSuccsOf(String node) {
+        return Views.toMappedSet(getOutEdgesOf(node), ICFGEdge::getTarget);
+    }
+
+    @Override
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Intra-procedural edge, including call-to-return edge, which
+     * carries no CFG edge.
+     */
+    private static class LocalEdge extends ICFGEdge<String> {
+
+        private LocalEdge(String source, String target) {
+            super(source, target);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+public class MultiContexts {
+
+    static int goo(int x, int y) {
+        return (x + y);
+    }
+
+    static int foo(int x, int y) {
+        return (x * y);
+    }
+
+    public static void main(String[] args) {
+        //goo is analyzed in one context
+        int a = 2;
+        int b = 3;
+        int c = goo(a, b);
+
+        //foo is analyzed in two contexts
+        int x = 2;
+        int y = 3;
+        int z = foo(x, y);
+
+        int r = 4;
+        int s = 5;
+        int t = foo(r, s);
+
+    }
+}
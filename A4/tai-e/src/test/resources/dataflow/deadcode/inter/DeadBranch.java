@@ -0,0 +1,28 @@
+class DeadBranch {
+
+    static void main(String[] args) {
+        int a = check(1);
+        int b = check(1);
+        int c = a + b;
+    }
+
+    static int check(int flag) {
+        if (flag == 1) {
+            return live();
+        } else {
+            return dead();
+        }
+    }
+
+    static int live() {
+        return 1;
+    }
+
+    static int dead() {
+        return deadToo();
+    }
+
+    static int deadToo() {
+        return 0;
+    }
+}
@@ -0,0 +1,27 @@
+class DeadReceiverCall {
+
+    static void main(String[] args) {
+        Box box = new Box();
+        int a = use(box, 1);
+    }
+
+    static int use(Box box, int flag) {
+        int x = 0;
+        if (flag != 1) {
+            x = box.dead();
+            x = box.dead();
+        }
+        return box.live() + box.live() + x;
+    }
+}
+
+class Box {
+
+    int live() {
+        return 1;
+    }
+
+    int dead() {
+        return 0;
+    }
+}
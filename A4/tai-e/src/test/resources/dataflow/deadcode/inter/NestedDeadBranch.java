@@ -0,0 +1,30 @@
+class NestedDeadBranch {
+
+    static void main(String[] args) {
+        int a = first(1);
+    }
+
+    static int first(int flag) {
+        if (flag == 1) {
+            return second(1);
+        } else {
+            return second(2);
+        }
+    }
+
+    static int second(int flag) {
+        if (flag == 1) {
+            return live();
+        } else {
+            return dead();
+        }
+    }
+
+    static int live() {
+        return 1;
+    }
+
+    static int dead() {
+        return 0;
+    }
+}